@@ -0,0 +1,76 @@
+package org.uroran.benchmarks;
+
+import org.jfree.chart.ChartPanel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uroran.models.Season;
+import org.uroran.models.TemperatureData;
+import org.uroran.util.ChartDrawer;
+import org.uroran.util.PointParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время построения графиков за месяц, сезон и за весь период (без отрисовки на экран).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ChartDatasetBenchmark {
+    @Param({"120", "1200"})
+    public int profiles;
+
+    @Param({"40", "400"})
+    public int depths;
+
+    private TemperatureData data;
+    private LocalDate monthDate;
+    private int seasonYear;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path directory = Files.createTempDirectory("uran-jmh");
+        try {
+            Path pointFile = directory.resolve("point15.txt");
+            SyntheticPointFile.write(pointFile, 15, profiles, depths);
+            data = PointParser.parseTemperatureData(15, pointFile.toString());
+        } finally {
+            SyntheticPointFile.delete(directory);
+        }
+
+        monthDate = data.getDate(data.size() / 2);
+        seasonYear = monthDate.getYear();
+    }
+
+    @Benchmark
+    public ChartPanel monthChart() {
+        return ChartDrawer.drawMonthChart(monthDate, data);
+    }
+
+    @Benchmark
+    public ChartPanel seasonChart() {
+        return ChartDrawer.drawSeasonChart(Season.SUMMER, seasonYear, data);
+    }
+
+    @Benchmark
+    public ChartPanel fullChart() {
+        return ChartDrawer.drawFullChart(data);
+    }
+}
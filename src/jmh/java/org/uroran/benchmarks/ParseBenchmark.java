@@ -0,0 +1,86 @@
+package org.uroran.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uroran.models.TemperatureData;
+import org.uroran.util.NumberTokenizer;
+import org.uroran.util.PointParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность разбора файлов с температурами.
+ * Счетчик bytes из {@link BytesCounter} дает скорость в байтах в секунду.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ParseBenchmark {
+    @Param({"120", "1200", "12000"})
+    public int profiles;
+
+    @Param({"40", "400"})
+    public int depths;
+
+    private Path directory;
+    private Path pointFile;
+    private long fileSize;
+    private String temperaturesLine;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("uran-jmh");
+        pointFile = directory.resolve("point15.txt");
+        fileSize = SyntheticPointFile.write(pointFile, 15, profiles, depths);
+
+        try (var lines = Files.lines(pointFile)) {
+            temperaturesLine = lines.skip(3).findFirst().orElseThrow();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticPointFile.delete(directory);
+    }
+
+    @Benchmark
+    public TemperatureData streamParse(BytesCounter counter) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(pointFile)) {
+            TemperatureData data = PointParser.parseTemperatureData(15, inputStream);
+            counter.bytes += fileSize;
+            return data;
+        }
+    }
+
+    @Benchmark
+    public TemperatureData parallelParse(BytesCounter counter) throws IOException {
+        TemperatureData data = PointParser.parsePointFileParallel(15, pointFile);
+        counter.bytes += fileSize;
+        return data;
+    }
+
+    @Benchmark
+    public double[] tokenizeLine(BytesCounter counter) {
+        double[] values = NumberTokenizer.parse(temperaturesLine);
+        counter.bytes += temperaturesLine.length();
+        return values;
+    }
+}
@@ -0,0 +1,91 @@
+package org.uroran.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Генератор синтетических файлов с температурами в формате расчетной программы.
+ * Профили идут помесячно, начиная с 2000-1-1, температура - сезонная волна, затухающая с глубиной, плюс шум.
+ * Генератор детерминирован: при одних и тех же параметрах файл получается байт в байт одинаковым.
+ */
+public final class SyntheticPointFile {
+    private static final long SEED = 0x5EEDL;
+    private static final double DEPTH_STEP = 0.5;
+
+    private SyntheticPointFile() {
+    }
+
+    /**
+     * Создание файла.
+     * @param path - путь к файлу
+     * @param pointNumber - номер скважины
+     * @param profiles - количество профилей (месяцев)
+     * @param depths - количество глубин в профиле
+     * @return - размер файла в байтах
+     */
+    public static long write(Path path, int pointNumber, int profiles, int depths) throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        StringBuilder depthsLine = new StringBuilder();
+        for (int j = 0; j < depths; j++) {
+            if (j > 0) {
+                depthsLine.append(' ');
+            }
+            depthsLine.append(String.format(Locale.ROOT, "%.2f", j * DEPTH_STEP));
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            LocalDate date = LocalDate.of(2000, 1, 1);
+            StringBuilder tempsLine = new StringBuilder();
+            for (int i = 0; i < profiles; i++) {
+                double phase = 2 * Math.PI * (date.getMonthValue() - 1) / 12.0;
+
+                tempsLine.setLength(0);
+                for (int j = 0; j < depths; j++) {
+                    double depth = j * DEPTH_STEP;
+                    double temperature = -2.0 + 10.0 * Math.exp(-depth / 3.0) * Math.sin(phase - depth / 3.0)
+                            + random.nextDouble(-0.05, 0.05);
+                    if (j > 0) {
+                        tempsLine.append(' ');
+                    }
+                    tempsLine.append(String.format(Locale.ROOT, "%.4f", temperature));
+                }
+
+                writer.write("Point " + pointNumber);
+                writer.newLine();
+                writer.write("Date: " + date.getYear() + "-" + date.getMonthValue() + "-" + date.getDayOfMonth());
+                writer.newLine();
+                writer.write(depthsLine.toString());
+                writer.newLine();
+                writer.write(tempsLine.toString());
+                writer.newLine();
+                writer.newLine();
+
+                date = date.plusMonths(1);
+            }
+        }
+
+        return Files.size(path);
+    }
+
+    /**
+     * Удаление файла или директории вместе с содержимым.
+     * @param path - путь
+     */
+    public static void delete(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (var children = Files.list(path)) {
+                for (Path child : children.toList()) {
+                    delete(child);
+                }
+            }
+        }
+        Files.deleteIfExists(path);
+    }
+}
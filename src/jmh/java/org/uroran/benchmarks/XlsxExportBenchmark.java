@@ -0,0 +1,65 @@
+package org.uroran.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uroran.models.TemperatureData;
+import org.uroran.service.exporters.XlsxExporter;
+import org.uroran.util.PointParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время экспорта данных скважины в XLSX.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class XlsxExportBenchmark {
+    @Param({"120", "1200"})
+    public int profiles;
+
+    @Param({"40", "400"})
+    public int depths;
+
+    private Path directory;
+    private TemperatureData data;
+    private File outputFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("uran-jmh");
+        Path pointFile = directory.resolve("point15.txt");
+        SyntheticPointFile.write(pointFile, 15, profiles, depths);
+        data = PointParser.parseTemperatureData(15, pointFile.toString());
+        outputFile = directory.resolve("export.xlsx").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticPointFile.delete(directory);
+    }
+
+    @Benchmark
+    public File export() throws IOException {
+        new XlsxExporter().export(data, outputFile);
+        return outputFile;
+    }
+}
@@ -1,14 +1,21 @@
 package org.uroran;
 
 import org.uroran.gui.SessionManagerWindow;
+import org.uroran.service.BatchExporter;
 import org.uroran.service.SessionDataService;
 
 import javax.swing.*;
 
 public class Main {
     public static void main(String[] args) {
+        // С аргументами - пакетный экспорт без интерфейса
+        if (args.length > 0) {
+            System.setProperty("java.awt.headless", "true");
+            System.exit(BatchExporter.runCommandLine(args));
+        }
+
         System.out.println(System.getProperty("java.home"));
 
         SwingUtilities.invokeLater(() -> new SessionManagerWindow(SessionDataService.getInstance()).setVisible(true));
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,22 @@
 package org.uroran.gui;
 
+import com.jcraft.jsch.SftpException;
 import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.uroran.models.ProfileStatistics;
 import org.uroran.models.Season;
 import org.uroran.models.TemperatureData;
+import org.uroran.service.PointFileTail;
+import org.uroran.service.SettingsManager;
 import org.uroran.service.exporters.ChartExporter;
 import org.uroran.service.exporters.ChartExporterFactory;
+import org.uroran.service.exporters.PngExporter;
 import org.uroran.service.exporters.Format;
+import org.uroran.util.ChartCache;
 import org.uroran.util.ChartDrawer;
 import org.uroran.util.ChartUtils;
+import org.uroran.util.FreezeFrontSeries;
+import org.uroran.util.ProfileAggregator;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -16,21 +25,60 @@ import java.io.File;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.Month;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 /**
  * Класс окна для просмотра температурных профилей.
  */
 public class ChartWindow extends JFrame {
+    private static final String DEFAULT_CHART_CACHE_SIZE_MB = "64";
+    private static final String ALL_YEARS = "Все годы";
+    private static final String ALL_MONTHS = "Все месяцы";
+
     private final TemperatureData temperatureData;
+    private final PointFileTail pointFileTail;
     private ChartPanel currentChart;
     private final JPanel chartPanel;
+    private final ChartCache chartCache;
+    private SwingWorker<JFreeChart, Void> chartWorker;
+    private JButton refreshButton;
+    private SwingWorker<PointFileTail.Update, Void> refreshWorker;
+    private final ProfileAggregator profileAggregator;
+    private ProfileAggregator.StatisticsKey currentStatisticsKey;
+    private final FreezeFrontSeries freezeFrontSeries;
+
+    private final JComboBox<String> chartTypes = new JComboBox<>(new String[]{"", "Месяц", "Сезон", "Всё", "Тепловая карта", "Статистика", "Фронт промерзания"});
+    private final JComboBox<String> valueSelector = new JComboBox<>();
+    private final JComboBox<String> yearSelector = new JComboBox<>();
 
     public ChartWindow(TemperatureData temperatureData) {
+        this(temperatureData, null);
+    }
+
+    /**
+     * Окно для файла, который еще дописывается расчетом: появляется кнопка дочитывания новых профилей.
+     *
+     * @param pointFileTail - слежение за файлом (может быть null)
+     */
+    public ChartWindow(PointFileTail pointFileTail) {
+        this(pointFileTail.getData(), pointFileTail);
+    }
+
+    private ChartWindow(TemperatureData temperatureData, PointFileTail pointFileTail) {
         this.temperatureData = temperatureData;
+        this.pointFileTail = pointFileTail;
+
+        long chartCacheSizeMb = Long.parseLong(new SettingsManager().getSetting("chartCacheSizeMb", DEFAULT_CHART_CACHE_SIZE_MB));
+        this.chartCache = new ChartCache(chartCacheSizeMb * 1024 * 1024);
+        this.profileAggregator = new ProfileAggregator(temperatureData);
+        this.freezeFrontSeries = new FreezeFrontSeries(temperatureData);
 
         setTitle("Скважина №" + temperatureData.getPointNumber());
         setSize(1000, 600);
         setLocationRelativeTo(null);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
 
         setLayout(new BorderLayout());
 
@@ -41,6 +89,18 @@ public class ChartWindow extends JFrame {
         add(chartPanel, BorderLayout.CENTER);
     }
 
+    @Override
+    public void dispose() {
+        cancelChartBuild();
+        if (pointFileTail != null) {
+            if (refreshWorker != null) {
+                refreshWorker.cancel(true);
+            }
+            pointFileTail.close();
+        }
+        super.dispose();
+    }
+
     /**
      * Метод для создания панели управления графиком
      *
@@ -68,9 +128,6 @@ public class ChartWindow extends JFrame {
     private JPanel getTopManagingPanel() {
         JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
 
-        JComboBox<String> chartTypes = new JComboBox<>(new String[]{"", "Месяц", "Сезон", "Всё"});
-        JComboBox<String> valueSelector = new JComboBox<>();
-        JComboBox<String> yearSelector = new JComboBox<>();
         valueSelector.setEnabled(false);
         yearSelector.setEnabled(false);
 
@@ -92,19 +149,40 @@ public class ChartWindow extends JFrame {
      * @return - панель
      */
     private JPanel getBottomManagingPanel() {
-        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        // Сетка по две кнопки в ряд: FlowLayout не увеличивает высоту панели при переносе кнопок
+        JPanel bottomPanel = new JPanel(new GridLayout(0, 2, 10, 10));
+        bottomPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         JButton exportImageButton = new JButton("Экспорт графика");
         JButton exportXlsxButton = new JButton("Экспорт данных");
+        JButton exportReportButton = new JButton("Экспорт отчета");
+        JButton exportCsvButton = new JButton("Экспорт CSV");
+        JButton exportBinaryButton = new JButton("Экспорт BIN");
 
         Dimension buttonSize = new Dimension(150, 30); // Размер кнопок
         exportImageButton.setPreferredSize(buttonSize);
         exportXlsxButton.setPreferredSize(buttonSize);
+        exportReportButton.setPreferredSize(buttonSize);
+        exportCsvButton.setPreferredSize(buttonSize);
+        exportBinaryButton.setPreferredSize(buttonSize);
 
         exportImageButton.addActionListener(_ -> exportChartAsPng());
         exportXlsxButton.addActionListener(_ -> exportChartAsXLSX());
+        exportReportButton.addActionListener(_ -> exportChart(Format.XLSX_REPORT));
+        exportCsvButton.addActionListener(_ -> exportChart(Format.CSV));
+        exportBinaryButton.addActionListener(_ -> exportChart(Format.BINARY));
 
         bottomPanel.add(exportImageButton);
         bottomPanel.add(exportXlsxButton);
+        bottomPanel.add(exportReportButton);
+        bottomPanel.add(exportCsvButton);
+        bottomPanel.add(exportBinaryButton);
+
+        if (pointFileTail != null) {
+            refreshButton = new JButton("Обновить");
+            refreshButton.setPreferredSize(buttonSize);
+            refreshButton.addActionListener(_ -> refreshData());
+            bottomPanel.add(refreshButton);
+        }
         return bottomPanel;
     }
 
@@ -135,6 +213,8 @@ public class ChartWindow extends JFrame {
      */
     private void listenChartTypes(JComboBox<String> chartTypes, JComboBox<String> yearSelector, JComboBox<String> valueSelector) {
         String selectedType = (String) chartTypes.getSelectedItem();
+        cancelChartBuild();
+        currentStatisticsKey = null;
         yearSelector.removeAllItems();
         valueSelector.removeAllItems();
         valueSelector.setEnabled(false);
@@ -146,8 +226,21 @@ public class ChartWindow extends JFrame {
                 yearSelector.addItem(String.valueOf(year));
             }
             yearSelector.setEnabled(true);
-        } else if ("Все".equals(selectedType)) {
-            updateChart(ChartDrawer.drawFullChart(temperatureData));
+        } else if ("Статистика".equals(selectedType)) {
+            yearSelector.addItem("");
+            yearSelector.addItem(ALL_YEARS);
+            for (int year : ChartUtils.getAvailableYears(this.temperatureData)) {
+                yearSelector.addItem(String.valueOf(year));
+            }
+            yearSelector.setEnabled(true);
+        } else if ("Всё".equals(selectedType)) {
+            showChart(new ChartCache.ChartKey(selectedType, "", ""), () -> ChartDrawer.createFullChart(temperatureData));
+            yearSelector.setEnabled(false);
+        } else if ("Тепловая карта".equals(selectedType)) {
+            showChart(new ChartCache.ChartKey(selectedType, "", ""), () -> ChartDrawer.createHeatmapChart(temperatureData));
+            yearSelector.setEnabled(false);
+        } else if ("Фронт промерзания".equals(selectedType)) {
+            showChart(new ChartCache.ChartKey(selectedType, "", ""), () -> ChartDrawer.createFreezeFrontChart(temperatureData, freezeFrontSeries));
             yearSelector.setEnabled(false);
         }
     }
@@ -167,6 +260,8 @@ public class ChartWindow extends JFrame {
         String selectedYear = (String) yearSelector.getSelectedItem();
         String selectedType = (String) chartTypes.getSelectedItem();
 
+        cancelChartBuild();
+        currentStatisticsKey = null;
         valueSelector.removeAllItems();
         valueSelector.setEnabled(false);
 
@@ -174,6 +269,19 @@ public class ChartWindow extends JFrame {
             return;
         }
 
+        if ("Статистика".equals(selectedType)) {
+            valueSelector.addItem("");
+            valueSelector.addItem(ALL_MONTHS);
+            for (Season season : Season.values()) {
+                valueSelector.addItem(season.toString());
+            }
+            for (Month month : Month.values()) {
+                valueSelector.addItem(month.toString());
+            }
+            valueSelector.setEnabled(true);
+            return;
+        }
+
         int year = Integer.parseInt(selectedYear);
 
         if ("Месяц".equals(selectedType)) {
@@ -208,6 +316,17 @@ public class ChartWindow extends JFrame {
         String selectedYear = (String) yearSelector.getSelectedItem();
 
         if (selectedValue == null || selectedValue.isEmpty() || selectedYear == null || selectedYear.isEmpty()) {
+            cancelChartBuild();
+            currentStatisticsKey = null;
+            return;
+        }
+
+        ChartCache.ChartKey key = new ChartCache.ChartKey(selectedType, selectedYear, selectedValue);
+        currentStatisticsKey = null;
+        if ("Статистика".equals(selectedType)) {
+            ProfileAggregator.StatisticsKey statisticsKey = createStatisticsKey(selectedYear, selectedValue);
+            currentStatisticsKey = statisticsKey;
+            showChart(key, () -> ChartDrawer.createStatisticsChart(aggregate(statisticsKey)));
             return;
         }
 
@@ -216,18 +335,18 @@ public class ChartWindow extends JFrame {
         switch (selectedType) {
             case "Месяц": {
                 Month selectedMonth = Month.valueOf(selectedValue.toUpperCase());
-                updateChart(ChartDrawer.drawMonthChart(LocalDate.of(year, selectedMonth, 1), temperatureData));
+                showChart(key, () -> ChartDrawer.createMonthChart(LocalDate.of(year, selectedMonth, 1), temperatureData));
                 break;
             }
 
             case "Сезон": {
                 Season selectedSeason = Season.valueOf(selectedValue.toUpperCase());
-                updateChart(ChartDrawer.drawSeasonChart(selectedSeason, year, temperatureData));
+                showChart(key, () -> ChartDrawer.createSeasonChart(selectedSeason, year, temperatureData));
                 break;
             }
 
             case "Всё": {
-                updateChart(ChartDrawer.drawFullChart(temperatureData));
+                showChart(key, () -> ChartDrawer.createFullChart(temperatureData));
                 break;
             }
 
@@ -236,20 +355,207 @@ public class ChartWindow extends JFrame {
         }
     }
 
+    /**
+     * Метод для создания выборки статистики по выбранным году и значению.
+     *
+     * @param selectedYear  - год или "Все годы"
+     * @param selectedValue - месяц, сезон или "Все месяцы"
+     * @return - выборка
+     */
+    private ProfileAggregator.StatisticsKey createStatisticsKey(String selectedYear, String selectedValue) {
+        int fromYear;
+        int toYear;
+        if (ALL_YEARS.equals(selectedYear)) {
+            Integer[] years = ChartUtils.getAvailableYears(temperatureData);
+            fromYear = years[0];
+            toYear = years[years.length - 1];
+        } else {
+            fromYear = toYear = Integer.parseInt(selectedYear);
+        }
+
+        Month month = null;
+        Season season = null;
+        if (!ALL_MONTHS.equals(selectedValue)) {
+            try {
+                season = Season.valueOf(selectedValue);
+            } catch (IllegalArgumentException e) {
+                month = Month.valueOf(selectedValue);
+            }
+        }
+        return new ProfileAggregator.StatisticsKey(fromYear, toYear, month, season);
+    }
+
+    /**
+     * Метод для расчета статистики (результат кэшируется).
+     *
+     * @param key - выборка
+     * @return - статистика
+     */
+    private ProfileStatistics aggregate(ProfileAggregator.StatisticsKey key) {
+        ProfileStatistics statistics = profileAggregator.aggregate(key);
+        if (statistics == null) {
+            throw new IllegalStateException("Нет профилей за " + key.title());
+        }
+        return statistics;
+    }
+
+    /**
+     * Метод для показа графика: из кэша окна, если он уже строился, иначе график строится в фоновом потоке.
+     * Пока график строится, вместо него показывается индикатор; незаконченное построение предыдущего графика отменяется.
+     * В потоке EDT выполняется только замена панели.
+     *
+     * @param key          - ключ графика
+     * @param chartBuilder - построение графика (вызывается в фоновом потоке)
+     */
+    private void showChart(ChartCache.ChartKey key, Supplier<JFreeChart> chartBuilder) {
+        cancelChartBuild();
+
+        JFreeChart cached = chartCache.get(key);
+        if (cached != null) {
+            updateChart(ChartDrawer.createPanel(cached));
+            return;
+        }
+
+        showBuildProgress();
+        SwingWorker<JFreeChart, Void> worker = new SwingWorker<>() {
+            @Override
+            protected JFreeChart doInBackground() {
+                return chartBuilder.get();
+            }
+
+            @Override
+            protected void done() {
+                if (chartWorker != this || isCancelled()) {
+                    return;
+                }
+                chartWorker = null;
+
+                try {
+                    JFreeChart chart = get();
+                    chartCache.put(key, chart);
+                    updateChart(ChartDrawer.createPanel(chart));
+                } catch (CancellationException | InterruptedException ignored) {
+                    // Построение отменено новым выбором
+                } catch (ExecutionException e) {
+                    clearChart();
+                    JOptionPane.showMessageDialog(ChartWindow.this, "Ошибка при построении графика: " + e.getCause().getMessage(),
+                            "Ошибка", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        chartWorker = worker;
+        worker.execute();
+    }
+
+    /**
+     * Метод для отмены построения графика, если оно еще идет.
+     */
+    private void cancelChartBuild() {
+        if (chartWorker != null) {
+            chartWorker.cancel(true);
+            chartWorker = null;
+        }
+    }
+
+    /**
+     * Метод для показа индикатора построения графика.
+     */
+    private void showBuildProgress() {
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setString("Построение графика...");
+        progressBar.setStringPainted(true);
+
+        JPanel progressPanel = new JPanel(new GridBagLayout());
+        progressPanel.add(progressBar);
+        replaceChartPanelContent(progressPanel);
+    }
+
+    /**
+     * Метод для очистки панели с графиком.
+     */
+    private void clearChart() {
+        replaceChartPanelContent(new JPanel());
+    }
+
     /**
      * Метод для обновления панели с графиком.
      *
      * @param newChartPanel - новая панель с графиком.
      */
     private void updateChart(ChartPanel newChartPanel) {
+        if (currentChart != null) {
+            // Старая панель больше не показывается, отписываем ее от графика, который остается в кэше
+            currentChart.setChart(null);
+        }
         currentChart = newChartPanel;
+        replaceChartPanelContent(newChartPanel);
+    }
 
+    private void replaceChartPanelContent(JComponent content) {
         chartPanel.removeAll();
-        chartPanel.add(newChartPanel, BorderLayout.CENTER);
+        chartPanel.add(content, BorderLayout.CENTER);
         chartPanel.revalidate();
         chartPanel.repaint();
     }
 
+    /**
+     * Метод для дочитывания новых профилей из дописываемого файла.
+     * Файл читается в фоне в отдельные данные, а в данные окна профили добавляются в потоке EDT,
+     * после отмены построения графика, которое могло их читать.
+     * Выбранные тип, год и значение сохраняются, текущий график перерисовывается.
+     */
+    private void refreshData() {
+        if (refreshWorker != null) {
+            return;
+        }
+
+        refreshButton.setEnabled(false);
+        refreshWorker = new SwingWorker<>() {
+            @Override
+            protected PointFileTail.Update doInBackground() throws SftpException, IOException {
+                return pointFileTail.fetch();
+            }
+
+            @Override
+            protected void done() {
+                refreshWorker = null;
+                refreshButton.setEnabled(true);
+
+                PointFileTail.Update update;
+                try {
+                    update = get();
+                } catch (CancellationException | InterruptedException e) {
+                    return;
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(ChartWindow.this, "Ошибка при обновлении данных: " + e.getCause().getMessage(),
+                            "Ошибка", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                applyRefresh(update);
+            }
+        };
+        refreshWorker.execute();
+    }
+
+    private void applyRefresh(PointFileTail.Update update) {
+        if (update.isEmpty()) {
+            pointFileTail.apply(update);
+            return;
+        }
+
+        cancelChartBuild();
+        pointFileTail.apply(update);
+        chartCache.clear();
+
+        Object selectedYear = yearSelector.getSelectedItem();
+        Object selectedValue = valueSelector.getSelectedItem();
+
+        listenChartTypes(chartTypes, yearSelector, valueSelector);
+        yearSelector.setSelectedItem(selectedYear);
+        valueSelector.setSelectedItem(selectedValue);
+    }
+
     /**
      * Метод для экспорта в виде картинки
      */
@@ -265,28 +571,36 @@ public class ChartWindow extends JFrame {
     }
 
     /**
-     * Метод для экспорта графика
+     * Метод для экспорта графика: выбор файла и постановка экспорта в фоновую очередь
      */
     private void exportChart(Format format) {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Сохранить");
         fileChooser.setFileFilter(new FileNameExtensionFilter(format.getName().toUpperCase() + " файл", format.getName()));
 
+        if (format == Format.PNG && (currentChart == null || currentChart.getChart() == null)) {
+            JOptionPane.showMessageDialog(this, "Сначала постройте график", "Экспорт", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
         int userSelection = fileChooser.showSaveDialog(null);
         if (userSelection == JFileChooser.APPROVE_OPTION) {
-            File fileToSave = fileChooser.getSelectedFile();
+            File fileToSave = format.withExtension(fileChooser.getSelectedFile());
             ChartExporter exporter = ChartExporterFactory.getExporter(format);
 
-            try {
-                if (format == Format.PNG) {
-                    exporter.export(currentChart.getChart(), fileToSave);
-                } else if (format == Format.XLSX) {
-                    exporter.export(temperatureData, fileToSave);
-                }
-                JOptionPane.showMessageDialog(null, "Экспорт выполнен успешно: " + fileToSave.getAbsolutePath());
-            } catch (IOException e) {
-                JOptionPane.showMessageDialog(null, "Ошибка экспорта: " + e.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
+            // Экспорт идет в фоне, а к данным скважины тем временем могут дописываться профили, поэтому отдаем копию.
+            // Показанный график рисуется здесь, в потоке EDT, в фоне картинка только кодируется в PNG
+            Object data;
+            if (format == Format.PNG) {
+                data = currentChart.getChart().createBufferedImage(PngExporter.WIDTH, PngExporter.HEIGHT);
+            } else if (format == Format.XLSX) {
+                // Для графика статистики выгружается сама статистика, иначе - все данные скважины
+                data = currentStatisticsKey != null ? aggregate(currentStatisticsKey) : temperatureData.snapshot();
+            } else {
+                // Отчет и CSV/двоичные форматы выгружают все данные скважины
+                data = temperatureData.snapshot();
             }
+            ExportQueueDialog.getInstance().submit(exporter, data, fileToSave);
         }
     }
 }
@@ -0,0 +1,289 @@
+package org.uroran.gui;
+
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.data.Range;
+import org.uroran.models.Season;
+import org.uroran.models.TemperatureData;
+import org.uroran.util.ChartDrawer;
+import org.uroran.util.DepthGridResampler;
+import org.uroran.util.WellComparison;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Класс окна для сравнения нескольких скважин за один месяц или сезон.
+ * Профили скважин показываются на одном графике (наложение) или на отдельных графиках (плитки) с одинаковыми осями.
+ * Данные всех скважин готовятся в фоновом потоке параллельно, на общей сетке глубин; в потоке EDT создаются только панели.
+ */
+public class ComparisonWindow extends JFrame {
+    private static final String OVERLAY = "Наложение";
+    private static final String TILES = "Плитки";
+    private static final Dimension TILE_SIZE = new Dimension(320, 240);
+
+    private final List<TemperatureData> wells;
+    private final JPanel chartPanel;
+    private SwingWorker<List<JFreeChart>, Void> comparisonWorker;
+
+    private double[] grid;
+    private WellComparison.ComparisonKey lastKey;
+    private List<WellComparison.WellSeries> lastSeries;
+
+    private final JComboBox<String> chartTypes = new JComboBox<>(new String[]{"", "Месяц", "Сезон"});
+    private final JComboBox<String> yearSelector = new JComboBox<>();
+    private final JComboBox<String> valueSelector = new JComboBox<>();
+    private final JComboBox<String> layoutSelector = new JComboBox<>(new String[]{OVERLAY, TILES});
+
+    public ComparisonWindow(List<TemperatureData> wells) {
+        this.wells = List.copyOf(wells);
+
+        StringBuilder title = new StringBuilder("Сравнение скважин:");
+        for (TemperatureData well : this.wells) {
+            title.append(" №").append(well.getPointNumber());
+        }
+        setTitle(title.toString());
+        setSize(1200, 700);
+        setLocationRelativeTo(null);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        setLayout(new BorderLayout());
+        add(createManagingPanel(), BorderLayout.WEST);
+
+        chartPanel = new JPanel(new BorderLayout());
+        add(chartPanel, BorderLayout.CENTER);
+    }
+
+    @Override
+    public void dispose() {
+        cancelComparisonBuild();
+        super.dispose();
+    }
+
+    /**
+     * Метод для создания панели управления (тип, год, значение, способ показа)
+     *
+     * @return - панель
+     */
+    private JPanel createManagingPanel() {
+        JPanel managingPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        managingPanel.setPreferredSize(new Dimension(350, this.getHeight()));
+        managingPanel.setBorder(BorderFactory.createSoftBevelBorder(0));
+
+        yearSelector.setEnabled(false);
+        valueSelector.setEnabled(false);
+
+        chartTypes.addActionListener(_ -> listenChartTypes());
+        yearSelector.addActionListener(_ -> listenYearSelector());
+        valueSelector.addActionListener(_ -> showComparison());
+        layoutSelector.addActionListener(_ -> showComparison());
+
+        Dimension comboBoxSize = new Dimension(150, 30);
+        managingPanel.add(createComboBoxPanel(chartTypes, new JLabel("Выберите тип:"), comboBoxSize));
+        managingPanel.add(createComboBoxPanel(yearSelector, new JLabel("Выберите год:"), comboBoxSize));
+        managingPanel.add(createComboBoxPanel(valueSelector, new JLabel("Выберите значение:"), comboBoxSize));
+        managingPanel.add(createComboBoxPanel(layoutSelector, new JLabel("Показ:"), comboBoxSize));
+        return managingPanel;
+    }
+
+    private JPanel createComboBoxPanel(JComboBox<String> comboBox, JLabel label, Dimension comboBoxDimension) {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.TRAILING));
+        comboBox.setPreferredSize(comboBoxDimension);
+        panel.add(label);
+        panel.add(comboBox);
+        return panel;
+    }
+
+    /**
+     * Слушатель для комбобокса по типу: заполняет года, за которые есть профили хотя бы в одной скважине.
+     */
+    private void listenChartTypes() {
+        cancelComparisonBuild();
+        yearSelector.removeAllItems();
+        valueSelector.removeAllItems();
+        valueSelector.setEnabled(false);
+
+        String selectedType = (String) chartTypes.getSelectedItem();
+        if (selectedType == null || selectedType.isEmpty()) {
+            yearSelector.setEnabled(false);
+            return;
+        }
+
+        yearSelector.addItem("");
+        for (int year : WellComparison.getYears(wells)) {
+            yearSelector.addItem(String.valueOf(year));
+        }
+        yearSelector.setEnabled(true);
+    }
+
+    /**
+     * Слушатель для комбобокса по годам: заполняет месяцы или сезоны.
+     */
+    private void listenYearSelector() {
+        if (!yearSelector.isEnabled()) {
+            return;
+        }
+
+        cancelComparisonBuild();
+        valueSelector.removeAllItems();
+        valueSelector.setEnabled(false);
+
+        String selectedYear = (String) yearSelector.getSelectedItem();
+        if (selectedYear == null || selectedYear.isEmpty()) {
+            return;
+        }
+
+        valueSelector.addItem("");
+        if ("Месяц".equals(chartTypes.getSelectedItem())) {
+            for (Month month : Month.values()) {
+                valueSelector.addItem(month.toString());
+            }
+        } else {
+            for (Season season : Season.values()) {
+                valueSelector.addItem(season.toString());
+            }
+        }
+        valueSelector.setEnabled(true);
+    }
+
+    /**
+     * Метод для показа сравнения за выбранный период. Серии скважин считаются заново только при смене периода,
+     * при смене способа показа перестраиваются только графики.
+     */
+    private void showComparison() {
+        String selectedYear = (String) yearSelector.getSelectedItem();
+        String selectedValue = (String) valueSelector.getSelectedItem();
+        if (!valueSelector.isEnabled() || selectedYear == null || selectedYear.isEmpty()
+                || selectedValue == null || selectedValue.isEmpty()) {
+            return;
+        }
+
+        int year = Integer.parseInt(selectedYear);
+        WellComparison.ComparisonKey key = "Месяц".equals(chartTypes.getSelectedItem())
+                ? new WellComparison.ComparisonKey(year, Month.valueOf(selectedValue), null)
+                : new WellComparison.ComparisonKey(year, null, Season.valueOf(selectedValue));
+        boolean tiles = TILES.equals(layoutSelector.getSelectedItem());
+
+        double[] knownGrid = grid;
+        List<WellComparison.WellSeries> knownSeries = key.equals(lastKey) ? lastSeries : null;
+
+        cancelComparisonBuild();
+        showBuildProgress();
+        SwingWorker<List<JFreeChart>, Void> worker = new SwingWorker<>() {
+            private double[] builtGrid;
+            private List<WellComparison.WellSeries> builtSeries;
+
+            @Override
+            protected List<JFreeChart> doInBackground() {
+                builtGrid = knownGrid != null ? knownGrid : DepthGridResampler.uniformGrid(wells.toArray(TemperatureData[]::new));
+                builtSeries = knownSeries != null ? knownSeries : WellComparison.buildSeries(wells, builtGrid, key);
+                return createComparisonCharts(builtSeries, builtGrid, key, tiles);
+            }
+
+            @Override
+            protected void done() {
+                if (comparisonWorker != this || isCancelled()) {
+                    return;
+                }
+                comparisonWorker = null;
+
+                try {
+                    List<JFreeChart> charts = get();
+                    grid = builtGrid;
+                    lastKey = key;
+                    lastSeries = builtSeries;
+                    replaceChartPanelContent(tiles ? createTilesPanel(charts) : new ChartPanel(charts.getFirst()));
+                } catch (CancellationException | InterruptedException ignored) {
+                    // Построение отменено новым выбором
+                } catch (ExecutionException e) {
+                    replaceChartPanelContent(new JPanel());
+                    JOptionPane.showMessageDialog(ComparisonWindow.this, "Ошибка при построении графика: " + e.getCause().getMessage(),
+                            "Ошибка", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        comparisonWorker = worker;
+        worker.execute();
+    }
+
+    /**
+     * Построение графиков сравнения (в фоновом потоке). Скважины без профилей за период не показываются.
+     *
+     * @return - один график с наложением или по графику на скважину
+     */
+    private static List<JFreeChart> createComparisonCharts(List<WellComparison.WellSeries> series, double[] grid,
+                                                        WellComparison.ComparisonKey key, boolean tiles) {
+        List<WellComparison.WellSeries> withProfiles = new ArrayList<>();
+        for (WellComparison.WellSeries well : series) {
+            if (well.dates().length > 0) {
+                withProfiles.add(well);
+            }
+        }
+        if (withProfiles.isEmpty()) {
+            throw new IllegalStateException("Нет профилей за " + key.title());
+        }
+
+        Range temperatureRange = WellComparison.temperatureRange(withProfiles);
+        if (!tiles) {
+            return List.of(ChartDrawer.createComparisonChart(withProfiles, grid, key.title(), temperatureRange));
+        }
+
+        List<JFreeChart> charts = new ArrayList<>();
+        for (WellComparison.WellSeries well : withProfiles) {
+            charts.add(ChartDrawer.createComparisonTile(well, grid, temperatureRange));
+        }
+        return charts;
+    }
+
+    /**
+     * Панель с плитками графиков скважин.
+     *
+     * @param charts - графики
+     * @return - панель с прокруткой
+     */
+    private static JComponent createTilesPanel(List<JFreeChart> charts) {
+        int columns = (int) Math.ceil(Math.sqrt(charts.size()));
+        JPanel tilesPanel = new JPanel(new GridLayout(0, columns, 4, 4));
+        for (JFreeChart chart : charts) {
+            ChartPanel tile = new ChartPanel(chart);
+            tile.setPreferredSize(TILE_SIZE);
+            tilesPanel.add(tile);
+        }
+        JScrollPane scrollPane = new JScrollPane(tilesPanel);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        return scrollPane;
+    }
+
+    /**
+     * Метод для отмены построения, если оно еще идет.
+     */
+    private void cancelComparisonBuild() {
+        if (comparisonWorker != null) {
+            comparisonWorker.cancel(true);
+            comparisonWorker = null;
+        }
+    }
+
+    private void showBuildProgress() {
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setString("Построение графика...");
+        progressBar.setStringPainted(true);
+
+        JPanel progressPanel = new JPanel(new GridBagLayout());
+        progressPanel.add(progressBar);
+        replaceChartPanelContent(progressPanel);
+    }
+
+    private void replaceChartPanelContent(JComponent content) {
+        chartPanel.removeAll();
+        chartPanel.add(content, BorderLayout.CENTER);
+        chartPanel.revalidate();
+        chartPanel.repaint();
+    }
+}
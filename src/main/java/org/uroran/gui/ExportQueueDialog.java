@@ -0,0 +1,221 @@
+package org.uroran.gui;
+
+import org.uroran.service.exporters.ChartExporter;
+import org.uroran.service.exporters.ExportProgress;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Класс немодального окна-очереди экспорта, общего для всех окон графиков.
+ * Экспорты выполняются в фоне не больше чем {@link #EXPORT_THREADS} одновременно, остальные ждут в очереди.
+ * У каждого экспорта свой прогресс по записанным строкам и кнопка отмены.
+ * Экспорт пишется во временный файл в той же директории и заменяет выбранный файл только после успешного завершения,
+ * так что при отмене или ошибке старый файл остается как был, а временный удаляется.
+ */
+public class ExportQueueDialog extends JDialog {
+    private static final int EXPORT_THREADS = 2;
+
+    private static ExportQueueDialog instance;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(EXPORT_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "export");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final JPanel jobsPanel;
+
+    /**
+     * Окно очереди (создается при первом экспорте, вызывается в потоке EDT).
+     */
+    public static ExportQueueDialog getInstance() {
+        if (instance == null) {
+            instance = new ExportQueueDialog();
+        }
+        return instance;
+    }
+
+    private ExportQueueDialog() {
+        super((Frame) null, "Экспорт", false);
+        setDefaultCloseOperation(HIDE_ON_CLOSE);
+
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        add(mainPanel);
+
+        jobsPanel = new JPanel();
+        jobsPanel.setLayout(new BoxLayout(jobsPanel, BoxLayout.Y_AXIS));
+        JPanel topAligned = new JPanel(new BorderLayout());
+        topAligned.add(jobsPanel, BorderLayout.NORTH);
+        JScrollPane scrollPane = new JScrollPane(topAligned);
+        scrollPane.setPreferredSize(new Dimension(520, 260));
+        mainPanel.add(scrollPane, BorderLayout.CENTER);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton clearButton = new JButton("Убрать завершенные");
+        clearButton.addActionListener(_ -> removeFinished());
+        buttonPanel.add(clearButton);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        pack();
+        setLocationRelativeTo(null);
+    }
+
+    /**
+     * Постановка экспорта в очередь и показ окна очереди.
+     * @param exporter - экспортер
+     * @param data - данные (дальше только читаются из потока экспорта)
+     * @param file - файл с расширением формата
+     */
+    public void submit(ChartExporter exporter, Object data, File file) {
+        JobRow row = new JobRow(new ExportJob(exporter, data, file));
+        jobsPanel.add(row);
+        jobsPanel.revalidate();
+        executor.execute(row.job);
+
+        if (!isVisible()) {
+            setVisible(true);
+        }
+    }
+
+    private void removeFinished() {
+        for (Component component : jobsPanel.getComponents()) {
+            if (component instanceof JobRow row && row.job.isDone()) {
+                jobsPanel.remove(row);
+            }
+        }
+        jobsPanel.revalidate();
+        jobsPanel.repaint();
+    }
+
+    /**
+     * Фоновый экспорт в файл.
+     */
+    private static class ExportJob extends SwingWorker<Void, Void> {
+        private final ChartExporter exporter;
+        private final Object data;
+        private final File file;
+
+        private volatile long rowsDone;
+        private volatile long rowsTotal;
+
+        ExportJob(ChartExporter exporter, Object data, File file) {
+            this.exporter = exporter;
+            this.data = data;
+            this.file = file;
+        }
+
+        @Override
+        protected Void doInBackground() throws IOException {
+            Path target = file.toPath().toAbsolutePath();
+            String name = file.getName();
+            int dot = name.lastIndexOf('.');
+            // Расширение то же, что у выбранного файла, иначе экспортер допишет свое к имени временного файла
+            Path temp = Files.createTempFile(target.getParent(), "." + name.substring(0, dot) + "-", name.substring(dot));
+            try {
+                exporter.export(data, temp.toFile(), this::rowsWritten);
+                if (isCancelled()) {
+                    throw new InterruptedIOException("Экспорт отменен");
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return null;
+        }
+
+        private void rowsWritten(long done, long total) throws InterruptedIOException {
+            if (isCancelled()) {
+                throw new InterruptedIOException("Экспорт отменен");
+            }
+            rowsDone = done;
+            rowsTotal = total;
+            setProgress((int) (done * 100 / total));
+        }
+    }
+
+    /**
+     * Строка очереди: файл, прогресс, состояние и кнопка отмены.
+     */
+    private class JobRow extends JPanel {
+        private final ExportJob job;
+        private final JProgressBar progressBar = new JProgressBar(0, 100);
+        private final JLabel statusLabel = new JLabel("В очереди");
+        private final JButton cancelButton = new JButton("Отмена");
+
+        JobRow(ExportJob job) {
+            super(new BorderLayout(10, 2));
+            this.job = job;
+            setBorder(BorderFactory.createEmptyBorder(0, 0, 8, 0));
+
+            JLabel fileLabel = new JLabel(job.file.getName());
+            fileLabel.setToolTipText(job.file.getAbsolutePath());
+            add(fileLabel, BorderLayout.NORTH);
+            add(progressBar, BorderLayout.CENTER);
+            add(statusLabel, BorderLayout.SOUTH);
+            add(cancelButton, BorderLayout.EAST);
+
+            cancelButton.addActionListener(_ -> {
+                if (job.isDone()) {
+                    jobsPanel.remove(this);
+                    jobsPanel.revalidate();
+                    jobsPanel.repaint();
+                } else {
+                    job.cancel(true);
+                }
+            });
+
+            // Слушатели SwingWorker вызываются в потоке EDT
+            job.addPropertyChangeListener(event -> {
+                switch (event.getPropertyName()) {
+                    case "state" -> {
+                        if (job.getState() == SwingWorker.StateValue.STARTED) {
+                            progressBar.setIndeterminate(true);
+                            statusLabel.setText("Выполняется");
+                        } else if (job.getState() == SwingWorker.StateValue.DONE) {
+                            finished();
+                        }
+                    }
+                    case "progress" -> {
+                        if (!job.isDone()) {
+                            progressBar.setIndeterminate(false);
+                            progressBar.setValue(job.getProgress());
+                            statusLabel.setText(job.rowsDone < job.rowsTotal
+                                    ? String.format("Записано строк: %d из %d", job.rowsDone, job.rowsTotal)
+                                    : "Сохранение файла");
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            });
+        }
+
+        private void finished() {
+            progressBar.setIndeterminate(false);
+            cancelButton.setText("Убрать");
+            try {
+                job.get();
+                progressBar.setValue(100);
+                statusLabel.setText("Готово: " + job.file.getAbsolutePath());
+            } catch (CancellationException e) {
+                statusLabel.setText("Отменено");
+            } catch (ExecutionException e) {
+                statusLabel.setForeground(Color.RED);
+                statusLabel.setText("Ошибка экспорта: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
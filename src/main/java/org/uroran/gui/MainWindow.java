@@ -20,13 +20,15 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Класс главного окна
@@ -34,8 +36,15 @@ import java.util.Map;
 public class MainWindow extends JFrame {
     private static final SftpEntry EMPTY_ENTRY = new SftpEntry("..", SftpEntry.EntryType.DIRECTORY, "");
     private static final Path TEMP_FILES_DIR = Paths.get(System.getProperty("user.home"), "tempfiles/");
+    private static final Path CACHE_DIR = TEMP_FILES_DIR.resolve("cache");
+    private static final String DEFAULT_CACHE_SIZE_MB = "512";
+    /**
+     * Файлы от этого размера скачиваются целиком и разбираются параллельно, меньшие разбираются прямо из SFTP-потока.
+     */
+    private static final long PARALLEL_PARSE_MIN_SIZE = 32L * 1024 * 1024;
 
     private final List<String> currentFiles = new ArrayList<>();
+    private final Map<String, SftpEntry> currentEntries = new HashMap<>();
     private int currentFilesIndex = 0;
 
     private JTextField commandInputField;
@@ -50,6 +59,7 @@ public class MainWindow extends JFrame {
     private boolean sync;
 
     private final TaskManager taskManager;
+    private PointFileCache pointFileCache;
 
     public MainWindow(SessionData sessionData) {
         sessionManager = new SessionManager(sessionData);
@@ -95,6 +105,9 @@ public class MainWindow extends JFrame {
      */
     private void applySettings() {
         sync = Boolean.parseBoolean(settingsManager.getSetting("syncDirectories"));
+
+        long cacheSizeMb = Long.parseLong(settingsManager.getSetting("pointCacheSizeMb", DEFAULT_CACHE_SIZE_MB));
+        pointFileCache = new PointFileCache(CACHE_DIR, cacheSizeMb * 1024 * 1024);
     }
 
     /**
@@ -284,6 +297,7 @@ public class MainWindow extends JFrame {
      */
     private void updateFileList() {
         currentFiles.clear();
+        currentEntries.clear();
         currentFilesIndex = 0;
 
         tableModel.setRowCount(0);
@@ -294,6 +308,7 @@ public class MainWindow extends JFrame {
             for (SftpEntry entry : files) {
                 tableModel.addRow(new Object[]{entry.getEntryType().name(), entry.getName(), entry.getMTime()});
                 currentFiles.add(entry.getName());
+                currentEntries.put(entry.getName(), entry);
             }
         } catch (SftpException e) {
             JOptionPane.showMessageDialog(this, "Не удалось загрузить список файлов: " + e.getMessage());
@@ -371,34 +386,224 @@ public class MainWindow extends JFrame {
 
         // Кнопка "График"
         JMenuItem graphItem = new JMenuItem("График");
-        graphItem.addActionListener(_ -> {
+        graphItem.addActionListener(_ -> openChart(fileName));
+        contextMenu.add(graphItem);
+
+        // Кнопка "Следить за расчетом"
+        JMenuItem monitorItem = new JMenuItem("Следить за расчетом");
+        monitorItem.addActionListener(_ -> openMonitoringChart(fileName));
+        contextMenu.add(monitorItem);
+
+        return contextMenu;
+    }
+
+    /**
+     * Метод для открытия окна с графиками по файлу с температурами.
+     * Если файл на сервере не менялся с прошлого открытия, данные берутся из локального кэша без скачивания и парсинга.
+     * Иначе небольшой файл разбирается прямо из SFTP-потока, а большой скачивается во временный файл
+     * и разбирается параллельно ({@link PointParser#parsePointFileParallel}): разбор потока идет в одном потоке
+     * и на больших файлах медленнее, чем скачивание.
+     *
+     * @param fileName - файл в текущей директории
+     */
+    private void openChart(String fileName) {
+        SftpEntry entry = currentEntries.get(fileName);
+        String remotePath;
+        try {
+            remotePath = sftpService.getCurrentRemoteDir() + "/" + fileName;
+        } catch (SftpException e) {
+            JOptionPane.showMessageDialog(this, "Ошибка при открытии файла для построения графиков " + e.getMessage());
+            return;
+        }
+
+        TemperatureData cached = entry == null ? null
+                : pointFileCache.get(remotePath, entry.getSize(), entry.getMTimeSeconds(), PointParser.parsePointNumber(fileName));
+        if (cached != null) {
+            SwingUtilities.invokeLater(() -> new ChartWindow(cached).setVisible(true));
+            return;
+        }
+
+        TemperatureData data;
+        try {
+            data = entry != null && entry.getSize() >= PARALLEL_PARSE_MIN_SIZE
+                    ? downloadAndParse(fileName)
+                    : streamAndParse(fileName);
+        } catch (SftpException | IOException e) {
+            JOptionPane.showMessageDialog(this, "Ошибка при открытии файла для построения графиков " + e.getMessage());
+            return;
+        }
+
+        if (entry != null) {
             try {
-                sftpService.downloadFile(Path.of(fileName), TEMP_FILES_DIR);
-            } catch (SftpException e) {
-                JOptionPane.showMessageDialog(this, "Ошибка при открытии файла для построения графиков " + e.getMessage());
-                return;
+                pointFileCache.put(remotePath, entry.getSize(), entry.getMTimeSeconds(), data);
+            } catch (IOException ignored) {
+                // Без кэша график все равно откроется, файл просто будет скачан заново в следующий раз
             }
+        }
 
-            Map<LocalDate, Map<Double, Double>> parsedData;
+        SwingUtilities.invokeLater(() -> new ChartWindow(data).setVisible(true));
+    }
+
+    /**
+     * Разбор файла прямо из SFTP-потока по мере получения, без временного файла.
+     */
+    private TemperatureData streamAndParse(String fileName) throws SftpException, IOException {
+        try (InputStream inputStream = sftpService.openInputStream(Path.of(fileName))) {
+            return PointParser.parseTemperatureData(PointParser.parsePointNumber(fileName), inputStream);
+        }
+    }
+
+    /**
+     * Скачивание файла во временный файл и его параллельный разбор, временный файл затем удаляется.
+     */
+    private TemperatureData downloadAndParse(String fileName) throws SftpException, IOException {
+        Path localFile = Files.createTempFile(TEMP_FILES_DIR, "point", ".txt");
+        try {
+            sftpService.downloadFile(Path.of(fileName), localFile);
+            return PointParser.parsePointFileParallel(PointParser.parsePointNumber(fileName), localFile);
+        } finally {
             try {
-                parsedData = PointParser.parsePointFile(TEMP_FILES_DIR + "\\" + fileName);
-                Files.deleteIfExists(Path.of(TEMP_FILES_DIR + "\\" + fileName));
+                Files.deleteIfExists(localFile);
             } catch (IOException e) {
-                JOptionPane.showMessageDialog(this, "Ошибка при открытии файла для построения графиков " + e.getMessage());
-                return;
+                // Отображенный в память файл в Windows нельзя удалить, пока буфер не собран сборщиком мусора
+                localFile.toFile().deleteOnExit();
             }
+        }
+    }
 
-            TemperatureData data = new TemperatureData(15, parsedData);
+    /**
+     * Метод для открытия окна с графиками по файлу, который еще дописывается расчетом.
+     * Слежение открывает свой SFTP-канал, первое чтение файла идет в фоне с окном прогресса.
+     * При обновлении в окне скачиваются только новые профили.
+     *
+     * @param fileName - файл в текущей директории
+     */
+    private void openMonitoringChart(String fileName) {
+        String remotePath;
+        try {
+            remotePath = sftpService.getCurrentRemoteDir() + "/" + fileName;
+        } catch (SftpException e) {
+            JOptionPane.showMessageDialog(this, "Ошибка при открытии файла для построения графиков " + e.getMessage());
+            return;
+        }
 
-            SwingUtilities.invokeLater(() -> {
-                ChartWindow chartWindow = new ChartWindow(data);
-                chartWindow.setVisible(true);
-            });
+        SwingWorker<PointFileTail, Void> worker = new SwingWorker<>() {
+            // Слежение, открытое в фоне; при отмене его канал закрывает тот, кто узнал об отмене последним
+            private PointFileTail opened;
 
-        });
-        contextMenu.add(graphItem);
+            @Override
+            protected PointFileTail doInBackground() throws Exception {
+                PointFileTail pointFileTail = new PointFileTail(sessionManager, remotePath, PointParser.parsePointNumber(fileName));
+                try {
+                    pointFileTail.refresh();
+                } catch (Exception e) {
+                    pointFileTail.close();
+                    throw e;
+                }
+                synchronized (this) {
+                    if (isCancelled()) {
+                        pointFileTail.close();
+                        return null;
+                    }
+                    opened = pointFileTail;
+                }
+                return pointFileTail;
+            }
 
-        return contextMenu;
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                if (isCancelled()) {
+                    synchronized (this) {
+                        if (opened != null) {
+                            opened.close();
+                        }
+                    }
+                    return;
+                }
+
+                PointFileTail pointFileTail;
+                try {
+                    pointFileTail = get();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(MainWindow.this, "Ошибка при открытии файла для построения графиков " + e.getCause().getMessage());
+                    return;
+                }
+                new ChartWindow(pointFileTail).setVisible(true);
+            }
+
+            private final ProgressDialog progressDialog = new ProgressDialog(MainWindow.this, "Чтение " + fileName, () -> cancel(true));
+
+            {
+                progressDialog.setVisible(true);
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * Метод для пакетной загрузки всех файлов с температурами из текущей директории.
+     * Загрузка идет в фоне с отображением прогресса, по окончании открывается окно со списком скважин.
+     */
+    private void loadAllWells() {
+        String remoteDir;
+        try {
+            remoteDir = sftpService.getCurrentRemoteDir();
+        } catch (SftpException e) {
+            JOptionPane.showMessageDialog(this, "Не удалось получить текущую директорию: " + e.getMessage());
+            return;
+        }
+
+        int workers = Math.max(2, Runtime.getRuntime().availableProcessors());
+        WellBatchLoader loader = new WellBatchLoader(sessionManager, workers);
+
+        SwingWorker<WellBatchLoader.Result, WellBatchLoader.ProgressSnapshot> worker = new SwingWorker<>() {
+            @Override
+            protected WellBatchLoader.Result doInBackground() throws Exception {
+                return loader.load(remoteDir, this::publish);
+            }
+
+            @Override
+            protected void process(List<WellBatchLoader.ProgressSnapshot> chunks) {
+                WellBatchLoader.ProgressSnapshot last = chunks.getLast();
+                progressDialog.setProgress(last.bytesDone(), last.bytesTotal(), String.format(
+                        "Файлов: %d из %d, %.1f файл/с, %.1f МБ/с",
+                        last.filesDone(), last.filesTotal(), last.filesPerSecond(), last.megabytesPerSecond()));
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                if (isCancelled()) {
+                    return;
+                }
+
+                WellBatchLoader.Result result;
+                try {
+                    result = get();
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(MainWindow.this, "Ошибка при загрузке скважин: " + e.getMessage());
+                    return;
+                }
+
+                if (!result.failedFiles().isEmpty()) {
+                    JOptionPane.showMessageDialog(MainWindow.this,
+                            "Не удалось загрузить:\n" + String.join("\n", result.failedFiles()));
+                }
+                if (!result.wells().isEmpty()) {
+                    new WellsWindow(remoteDir, result.wells()).setVisible(true);
+                }
+            }
+
+            private final ProgressDialog progressDialog = new ProgressDialog(MainWindow.this, "Загрузка скважин", () -> cancel(true));
+
+            {
+                progressDialog.setVisible(true);
+            }
+        };
+        worker.execute();
     }
 
     /**
@@ -427,6 +632,12 @@ public class MainWindow extends JFrame {
         tasksButton.setPreferredSize(buttonsDimension);
         menuBar.add(tasksButton);
 
+        // Кнопка "Скважины"
+        JButton wellsButton = new JButton("Скважины");
+        wellsButton.addActionListener(_ -> loadAllWells());
+        wellsButton.setPreferredSize(buttonsDimension);
+        menuBar.add(wellsButton);
+
 //        // Кнопка "Справка"
 //        JButton helpButton = new JButton("Справка");
 //        helpButton.addActionListener(_ -> {
@@ -0,0 +1,53 @@
+package org.uroran.gui;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Класс немодального окна с прогрессом долгой операции и кнопкой отмены.
+ */
+public class ProgressDialog extends JDialog {
+    private final JProgressBar progressBar;
+    private final JLabel statusLabel;
+
+    public ProgressDialog(Frame parent, String title, Runnable onCancel) {
+        super(parent, title, false);
+        setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        add(mainPanel);
+
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setIndeterminate(true);
+        progressBar.setPreferredSize(new Dimension(400, 20));
+        mainPanel.add(progressBar, BorderLayout.NORTH);
+
+        statusLabel = new JLabel(" ");
+        mainPanel.add(statusLabel, BorderLayout.CENTER);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton cancelButton = new JButton("Отмена");
+        cancelButton.addActionListener(_ -> onCancel.run());
+        buttonPanel.add(cancelButton);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        pack();
+        setLocationRelativeTo(parent);
+    }
+
+    /**
+     * Метод для обновления прогресса (вызывается в потоке EDT).
+     *
+     * @param done   - выполнено
+     * @param total  - всего
+     * @param status - текст состояния
+     */
+    public void setProgress(long done, long total, String status) {
+        if (total > 0) {
+            progressBar.setIndeterminate(false);
+            progressBar.setValue((int) Math.min(100, done * 100 / total));
+        }
+        statusLabel.setText(status);
+    }
+}
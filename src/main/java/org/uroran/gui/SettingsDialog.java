@@ -13,6 +13,9 @@ import java.awt.event.WindowEvent;
 public class SettingsDialog extends JDialog {
     private final SettingsManager settingsManager;
     private JCheckBox syncDirectoriesCheckBox;
+    private JSpinner cacheSizeSpinner;
+    private JSpinner chartCacheSizeSpinner;
+    private JCheckBox xlsxColumnWidthsCheckBox;
 
     public SettingsDialog(JFrame parent, SettingsManager settingsManager, Runnable onCloseCallback) {
         super(parent, "Настройки", true);
@@ -44,10 +47,25 @@ public class SettingsDialog extends JDialog {
      */
     private void initUI() {
         // Панель с настройками
-        JPanel settingsPanel = new JPanel(new GridLayout(1, 1));
+        JPanel settingsPanel = new JPanel(new GridLayout(4, 1));
         syncDirectoriesCheckBox = new JCheckBox("Синхронизация перехода по директориям");
         settingsPanel.add(syncDirectoriesCheckBox);
 
+        JPanel cacheSizePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        cacheSizeSpinner = new JSpinner(new SpinnerNumberModel(512, 0, 100_000, 64));
+        cacheSizePanel.add(new JLabel("Размер кэша файлов с температурами (МБ):"));
+        cacheSizePanel.add(cacheSizeSpinner);
+        settingsPanel.add(cacheSizePanel);
+
+        JPanel chartCacheSizePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        chartCacheSizeSpinner = new JSpinner(new SpinnerNumberModel(64, 0, 10_000, 16));
+        chartCacheSizePanel.add(new JLabel("Память под графики в окне (МБ):"));
+        chartCacheSizePanel.add(chartCacheSizeSpinner);
+        settingsPanel.add(chartCacheSizePanel);
+
+        xlsxColumnWidthsCheckBox = new JCheckBox("Подбирать ширину столбцов при экспорте в XLSX");
+        settingsPanel.add(xlsxColumnWidthsCheckBox);
+
         // Кнопки управления
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         JButton saveButton = new JButton("Сохранить");
@@ -74,6 +92,14 @@ public class SettingsDialog extends JDialog {
     private void loadSettings() {
         boolean isSyncEnabled = Boolean.parseBoolean(settingsManager.getSetting("syncDirectories", "true"));
         syncDirectoriesCheckBox.setSelected(isSyncEnabled);
+
+        int cacheSizeMb = Integer.parseInt(settingsManager.getSetting("pointCacheSizeMb", "512"));
+        cacheSizeSpinner.setValue(cacheSizeMb);
+
+        int chartCacheSizeMb = Integer.parseInt(settingsManager.getSetting("chartCacheSizeMb", "64"));
+        chartCacheSizeSpinner.setValue(chartCacheSizeMb);
+
+        xlsxColumnWidthsCheckBox.setSelected(Boolean.parseBoolean(settingsManager.getSetting("xlsxColumnWidths", "true")));
     }
 
     /**
@@ -82,5 +108,8 @@ public class SettingsDialog extends JDialog {
     private void saveSettings() {
         boolean isSyncEnabled = syncDirectoriesCheckBox.isSelected();
         settingsManager.setSetting("syncDirectories", String.valueOf(isSyncEnabled));
+        settingsManager.setSetting("pointCacheSizeMb", String.valueOf(cacheSizeSpinner.getValue()));
+        settingsManager.setSetting("chartCacheSizeMb", String.valueOf(chartCacheSizeSpinner.getValue()));
+        settingsManager.setSetting("xlsxColumnWidths", String.valueOf(xlsxColumnWidthsCheckBox.isSelected()));
     }
 }
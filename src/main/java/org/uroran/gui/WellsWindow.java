@@ -0,0 +1,94 @@
+package org.uroran.gui;
+
+import org.uroran.models.TemperatureData;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Класс окна со списком загруженных скважин.
+ */
+public class WellsWindow extends JFrame {
+    private final Map<Integer, TemperatureData> wells;
+    private final JList<Integer> wellList;
+
+    public WellsWindow(String remoteDir, Map<Integer, TemperatureData> wells) {
+        this.wells = wells;
+
+        setTitle("Скважины: " + remoteDir);
+        setSize(400, 500);
+        setLocationRelativeTo(null);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        add(mainPanel);
+
+        JLabel titleLabel = new JLabel("Загружено скважин: " + wells.size());
+        titleLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        mainPanel.add(titleLabel, BorderLayout.NORTH);
+
+        DefaultListModel<Integer> wellListModel = new DefaultListModel<>();
+        wells.keySet().forEach(wellListModel::addElement);
+        wellList = new JList<>(wellListModel);
+        wellList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                TemperatureData data = wells.get((Integer) value);
+                String text = "Скважина №" + value + " (профилей: " + data.size() + ")";
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        wellList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openSelectedWell();
+                }
+            }
+        });
+        mainPanel.add(new JScrollPane(wellList), BorderLayout.CENTER);
+
+        JPanel buttonPanel = new JPanel();
+        JButton openButton = new JButton("График");
+        openButton.addActionListener(_ -> openSelectedWell());
+        buttonPanel.add(openButton);
+        JButton compareButton = new JButton("Сравнить");
+        compareButton.addActionListener(_ -> compareSelectedWells());
+        buttonPanel.add(compareButton);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Метод для открытия окна графиков выбранной скважины.
+     */
+    private void openSelectedWell() {
+        Integer pointNumber = wellList.getSelectedValue();
+        if (pointNumber != null) {
+            new ChartWindow(wells.get(pointNumber)).setVisible(true);
+        }
+    }
+
+    /**
+     * Метод для открытия окна сравнения выбранных скважин (если выбрано меньше двух - всех загруженных).
+     */
+    private void compareSelectedWells() {
+        List<Integer> selected = wellList.getSelectedValuesList();
+        Collection<Integer> pointNumbers = selected.size() >= 2 ? selected : wells.keySet();
+        if (pointNumbers.size() < 2) {
+            JOptionPane.showMessageDialog(this, "Для сравнения нужно хотя бы две скважины");
+            return;
+        }
+
+        List<TemperatureData> compared = new ArrayList<>();
+        for (Integer pointNumber : pointNumbers) {
+            compared.add(wells.get(pointNumber));
+        }
+        new ComparisonWindow(compared).setVisible(true);
+    }
+}
@@ -0,0 +1,125 @@
+package org.uroran.models;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Arrays;
+
+/**
+ * Календарный индекс профилей: год - месяц - диапазон номеров профилей.
+ * Профили в {@link TemperatureData} упорядочены по дате, поэтому профили одного месяца идут подряд,
+ * и для каждого года достаточно хранить 13 границ: начало каждого месяца и конец года.
+ * Сезон - это объединение диапазонов трех месяцев того же года (декабрь относится к зиме своего года,
+ * как и при подписи графиков, где декабрь показывается как декабрь предыдущего года).
+ */
+final class CalendarIndex {
+    private static final int MONTHS = 12;
+
+    private int[] years = new int[4];
+    private int[][] monthBounds = new int[4][];
+    private int yearCount;
+
+    /**
+     * Добавление профиля в конец (дата не раньше последней добавленной).
+     * @param date - дата профиля
+     * @param index - номер профиля
+     */
+    void append(LocalDate date, int index) {
+        int year = date.getYear();
+        if (yearCount == 0 || years[yearCount - 1] != year) {
+            if (yearCount == years.length) {
+                years = Arrays.copyOf(years, yearCount * 2);
+                monthBounds = Arrays.copyOf(monthBounds, yearCount * 2);
+            }
+            int[] bounds = new int[MONTHS + 1];
+            Arrays.fill(bounds, index);
+            years[yearCount] = year;
+            monthBounds[yearCount] = bounds;
+            yearCount++;
+        }
+
+        // Все месяцы после месяца профиля начинаются уже за ним
+        int[] bounds = monthBounds[yearCount - 1];
+        for (int k = date.getMonthValue(); k <= MONTHS; k++) {
+            bounds[k] = index + 1;
+        }
+    }
+
+    /**
+     * Построение индекса заново по отсортированным датам.
+     * @param dates - даты профилей
+     * @param size - количество профилей
+     */
+    void rebuild(LocalDate[] dates, int size) {
+        yearCount = 0;
+        for (int i = 0; i < size; i++) {
+            append(dates[i], i);
+        }
+    }
+
+    int[] years() {
+        return Arrays.copyOf(years, yearCount);
+    }
+
+    Month[] months(int year) {
+        int[] bounds = bounds(year);
+        if (bounds == null) {
+            return new Month[0];
+        }
+
+        Month[] months = new Month[MONTHS];
+        int count = 0;
+        for (int k = 0; k < MONTHS; k++) {
+            if (bounds[k] < bounds[k + 1]) {
+                months[count++] = Month.of(k + 1);
+            }
+        }
+        return Arrays.copyOf(months, count);
+    }
+
+    int[] profiles(int year, Month month) {
+        int[] bounds = bounds(year);
+        if (bounds == null) {
+            return new int[0];
+        }
+        return range(bounds[month.getValue() - 1], bounds[month.getValue()]);
+    }
+
+    int[] profiles(int year, Season season) {
+        int[] bounds = bounds(year);
+        if (bounds == null) {
+            return new int[0];
+        }
+
+        int count = 0;
+        for (int k = 0; k < MONTHS; k++) {
+            if (Season.getSeason(Month.of(k + 1)) == season) {
+                count += bounds[k + 1] - bounds[k];
+            }
+        }
+
+        // Месяцы перебираются по порядку, поэтому номера профилей остаются упорядоченными по дате
+        int[] result = new int[count];
+        int position = 0;
+        for (int k = 0; k < MONTHS; k++) {
+            if (Season.getSeason(Month.of(k + 1)) == season) {
+                for (int i = bounds[k]; i < bounds[k + 1]; i++) {
+                    result[position++] = i;
+                }
+            }
+        }
+        return result;
+    }
+
+    private int[] bounds(int year) {
+        int position = Arrays.binarySearch(years, 0, yearCount, year);
+        return position >= 0 ? monthBounds[position] : null;
+    }
+
+    private static int[] range(int from, int to) {
+        int[] result = new int[to - from];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = from + i;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,21 @@
+package org.uroran.models;
+
+/**
+ * Статистика температуры по глубинам за набор профилей (месяц, сезон, несколько лет).
+ * Все массивы одной длины и соответствуют сетке глубин; если на какой-то глубине значений нет, там NaN.
+ *
+ * @param title        - описание выборки, например "Зима, 2000-2010"
+ * @param depths       - глубины
+ * @param profileCount - количество профилей в выборке
+ * @param counts       - количество значений на каждой глубине
+ * @param mean         - среднее
+ * @param min          - минимум
+ * @param max          - максимум
+ * @param p10          - 10-й процентиль
+ * @param median       - медиана
+ * @param p90          - 90-й процентиль
+ */
+public record ProfileStatistics(String title, double[] depths, int profileCount, int[] counts,
+                                double[] mean, double[] min, double[] max,
+                                double[] p10, double[] median, double[] p90) {
+}
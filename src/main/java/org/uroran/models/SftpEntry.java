@@ -13,6 +13,12 @@ public class SftpEntry {
     private String name;
     private EntryType entryType;
     private String mTime;
+    private long size;
+    private long mTimeSeconds;
+
+    public SftpEntry(String name, EntryType entryType, String mTime) {
+        this(name, entryType, mTime, 0, 0);
+    }
 
     public enum EntryType {
         DIRECTORY,
@@ -1,21 +1,489 @@
 package org.uroran.models;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.time.Month;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
- * Класс, содержащий температурные профили в определенной скважине
+ * Класс, содержащий температурные профили в определенной скважине.
+ * Данные хранятся по столбцам: отсортированный массив дат и массив профилей (сетка глубин и температуры).
+ * Одинаковые сетки глубин у разных профилей хранятся одним общим массивом.
+ * Массивы, возвращаемые методами доступа, не копируются и не должны изменяться.
+ * Для выборок по году, месяцу и сезону поддерживается календарный индекс, который обновляется при добавлении профилей;
+ * выборки по нему идут под той же блокировкой, что и добавление.
+ * <p>
+ * Профили добавляются под блокировкой, а читаются без нее из любых потоков: массивы столбцов публикуются
+ * через volatile-ссылку, добавление в конец пишет в свободное место за последним профилем,
+ * а вставка в середину и рост массивов создают новые массивы. Поэтому читатель, пока идет добавление,
+ * видит либо старое, либо новое состояние, но не наполовину сдвинутые массивы.
  */
-@Data
-@Getter
-@AllArgsConstructor
-@NoArgsConstructor
 public class TemperatureData {
-    private int pointNumber;
-    private Map<LocalDate, Map<Double, Double>> data; // Date - Depth - Temperature
+    private static final int INITIAL_CAPACITY = 16;
+
+    @Getter
+    private final int pointNumber;
+
+    private volatile Columns columns;
+
+    private double[] sharedDepthGrid;
+    private boolean depthGridShared = true;
+
+    private final CalendarIndex calendarIndex = new CalendarIndex();
+    private boolean calendarIndexValid = true;
+
+    private volatile int rewriteCount;
+
+    public TemperatureData(int pointNumber) {
+        this.pointNumber = pointNumber;
+        this.columns = new Columns(new LocalDate[INITIAL_CAPACITY], new Profile[INITIAL_CAPACITY], 0);
+    }
+
+    /**
+     * Создание данных из словаря дата - глубина - температура.
+     * @param pointNumber - номер скважины
+     * @param data - словарь с профилями
+     */
+    public TemperatureData(int pointNumber, Map<LocalDate, Map<Double, Double>> data) {
+        this(pointNumber);
+        for (Map.Entry<LocalDate, Map<Double, Double>> entry : data.entrySet()) {
+            Map<Double, Double> profile = entry.getValue();
+            double[] profileDepths = new double[profile.size()];
+            double[] profileTemperatures = new double[profile.size()];
+
+            int i = 0;
+            for (Map.Entry<Double, Double> point : profile.entrySet()) {
+                profileDepths[i] = point.getKey();
+                profileTemperatures[i] = point.getValue();
+                i++;
+            }
+            addProfile(entry.getKey(), profileDepths, profileTemperatures);
+        }
+    }
+
+    /**
+     * Добавление профиля. Профиль с уже существующей датой заменяет старый.
+     * @param date - дата профиля
+     * @param profileDepths - глубины
+     * @param profileTemperatures - температуры (той же длины, что и глубины)
+     */
+    public synchronized void addProfile(LocalDate date, double[] profileDepths, double[] profileTemperatures) {
+        if (profileDepths.length != profileTemperatures.length) {
+            throw new IllegalArgumentException("Количество глубин и температур в профиле не совпадает");
+        }
+
+        insert(date, new Profile(shareDepthGrid(profileDepths), profileTemperatures));
+    }
+
+    /**
+     * Добавление всех профилей других данных (например, прочитанных в фоне), профили с теми же датами заменяются.
+     * @param other - добавляемые данные
+     */
+    public synchronized void addProfiles(TemperatureData other) {
+        for (int i = 0; i < other.size(); i++) {
+            Profile profile = other.getProfile(i);
+            insert(other.getDate(i), new Profile(shareDepthGrid(profile.depths()), profile.temperatures()));
+        }
+    }
+
+    /**
+     * Количество профилей.
+     */
+    public int size() {
+        return columns.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Дата профиля по его номеру (профили упорядочены по дате).
+     */
+    public LocalDate getDate(int index) {
+        Columns current = columns;
+        checkIndex(current, index);
+        return current.dates()[index];
+    }
+
+    /**
+     * Глубины профиля по его номеру.
+     */
+    public double[] getDepths(int index) {
+        return getProfile(index).depths();
+    }
+
+    /**
+     * Температуры профиля по его номеру.
+     */
+    public double[] getTemperatures(int index) {
+        return getProfile(index).temperatures();
+    }
+
+    /**
+     * Профиль по его номеру: глубины и температуры вместе, из одного и того же состояния данных.
+     */
+    public Profile getProfile(int index) {
+        Columns current = columns;
+        checkIndex(current, index);
+        return current.profiles()[index];
+    }
+
+    /**
+     * Температура профиля на заданной глубине.
+     * @return - температура или NaN, если такой глубины в профиле нет.
+     */
+    public double getTemperature(int index, double depth) {
+        Profile profile = getProfile(index);
+        double[] profileDepths = profile.depths();
+        double[] profileTemperatures = profile.temperatures();
+        for (int i = 0; i < profileDepths.length; i++) {
+            if (profileDepths[i] == depth) {
+                return profileTemperatures[i];
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Номер профиля по дате.
+     * @return - номер или -1, если профиля с такой датой нет.
+     */
+    public int indexOf(LocalDate date) {
+        Columns current = columns;
+        int index = Arrays.binarySearch(current.dates(), 0, current.size(), date);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Года, за которые есть профили.
+     * @return - года по возрастанию
+     */
+    public synchronized int[] getYears() {
+        return calendarIndex().years();
+    }
+
+    /**
+     * Месяцы года, за которые есть профили.
+     * @param year - год
+     * @return - месяцы по порядку
+     */
+    public synchronized Month[] getMonths(int year) {
+        return calendarIndex().months(year);
+    }
+
+    /**
+     * Номера профилей за месяц.
+     * @param year - год
+     * @param month - месяц
+     * @return - номера профилей по возрастанию даты
+     */
+    public synchronized int[] getProfileIndexes(int year, Month month) {
+        return calendarIndex().profiles(year, month);
+    }
+
+    /**
+     * Номера профилей за сезон. Сезон берется внутри календарного года, то есть зима - это январь, февраль и декабрь года.
+     * @param year - год
+     * @param season - сезон
+     * @return - номера профилей по возрастанию даты
+     */
+    public synchronized int[] getProfileIndexes(int year, Season season) {
+        return calendarIndex().profiles(year, season);
+    }
+
+    /**
+     * Проверка, что у всех профилей одна и та же сетка глубин.
+     */
+    public synchronized boolean hasSharedDepthGrid() {
+        return depthGridShared && columns.size() > 0;
+    }
+
+    /**
+     * Общая сетка глубин.
+     * @return - сетка или null, если сетки у профилей отличаются.
+     */
+    public synchronized double[] getDepthGrid() {
+        return hasSharedDepthGrid() ? sharedDepthGrid : null;
+    }
+
+    /**
+     * Счетчик изменений уже добавленных профилей: замен профиля с той же датой и вставок не в конец.
+     * Пока он не меняется, профили только дописываются в конец, и производные данные можно досчитывать по новым профилям.
+     */
+    public int getRewriteCount() {
+        return rewriteCount;
+    }
+
+    /**
+     * Копия данных на текущий момент, которую можно читать из другого потока, пока к этим данным добавляются профили.
+     * Массивы профилей не копируются (после добавления они не меняются).
+     * @return - копия данных
+     */
+    public synchronized TemperatureData snapshot() {
+        Columns current = columns;
+        TemperatureData copy = new TemperatureData(pointNumber);
+        copy.columns = new Columns(Arrays.copyOf(current.dates(), current.size()),
+                Arrays.copyOf(current.profiles(), current.size()), current.size());
+        copy.sharedDepthGrid = sharedDepthGrid;
+        copy.depthGridShared = depthGridShared;
+        copy.calendarIndex.rebuild(copy.columns.dates(), current.size());
+        return copy;
+    }
+
+    /**
+     * Представление данных в виде словаря дата - глубина - температура (только для чтения).
+     * Даты идут по возрастанию, а не в порядке файла (словарь в порядке файла дает {@code PointParser.parsePointFile}).
+     * Словарь не копирует данные, а читает их из массивов; только профиль с повторяющимися глубинами
+     * копируется в словарь, где повторная глубина заменяет значение, оставаясь на месте первой.
+     */
+    public Map<LocalDate, Map<Double, Double>> getData() {
+        return new ProfilesView();
+    }
+
+    /**
+     * Вставка профиля (вызывается под блокировкой).
+     * Замена профиля с той же датой пишет одну ссылку на профиль, так что читатель видит старый или новый профиль целиком.
+     * Добавление в конец дописывает свободное место за последним профилем и публикует новый размер.
+     * Вставка в середину и рост массивов всегда идут в новые массивы, старые массивы читатели дочитывают без изменений.
+     * Поля профиля неизменяемые (final), поэтому по прочитанной без блокировки ссылке виден полностью заполненный профиль.
+     */
+    private void insert(LocalDate date, Profile profile) {
+        Columns current = columns;
+        int size = current.size();
+        LocalDate[] dates = current.dates();
+        int index = size == 0 || dates[size - 1].isBefore(date) ? -(size + 1) : Arrays.binarySearch(dates, 0, size, date);
+        if (index >= 0) {
+            current.profiles()[index] = profile;
+            rewriteCount++;
+            columns = current;
+            return;
+        }
+
+        int insertAt = -(index + 1);
+        Columns next;
+        if (insertAt == size && size < dates.length) {
+            next = new Columns(dates, current.profiles(), size + 1);
+        } else {
+            int capacity = size < dates.length ? dates.length : Math.max(size + 1, dates.length * 2);
+            next = new Columns(new LocalDate[capacity], new Profile[capacity], size + 1);
+            copyShifted(dates, next.dates(), size, insertAt);
+            copyShifted(current.profiles(), next.profiles(), size, insertAt);
+        }
+
+        next.dates()[insertAt] = date;
+        next.profiles()[insertAt] = profile;
+
+        // Добавление в конец (обычный случай при чтении файла) обновляет индекс на месте, вставка в середину сдвигает номера
+        if (calendarIndexValid && insertAt == size) {
+            calendarIndex.append(date, insertAt);
+        } else {
+            calendarIndexValid = false;
+        }
+        if (insertAt < size) {
+            rewriteCount++;
+        }
+        columns = next;
+    }
+
+    private static <T> void copyShifted(T[] from, T[] to, int size, int gapAt) {
+        System.arraycopy(from, 0, to, 0, gapAt);
+        System.arraycopy(from, gapAt, to, gapAt + 1, size - gapAt);
+    }
+
+    /**
+     * Календарный индекс (вызывается под блокировкой, как и его обновление при добавлении профилей).
+     */
+    private CalendarIndex calendarIndex() {
+        if (!calendarIndexValid) {
+            Columns current = columns;
+            calendarIndex.rebuild(current.dates(), current.size());
+            calendarIndexValid = true;
+        }
+        return calendarIndex;
+    }
+
+    private double[] shareDepthGrid(double[] profileDepths) {
+        if (sharedDepthGrid == null) {
+            sharedDepthGrid = profileDepths;
+            return profileDepths;
+        }
+        if (sharedDepthGrid == profileDepths || Arrays.equals(sharedDepthGrid, profileDepths)) {
+            return sharedDepthGrid;
+        }
+        depthGridShared = false;
+        return profileDepths;
+    }
+
+    private static void checkIndex(Columns current, int index) {
+        if (index < 0 || index >= current.size()) {
+            throw new IndexOutOfBoundsException("Профиль " + index + " отсутствует, всего профилей: " + current.size());
+        }
+    }
+
+    /**
+     * Состояние столбцов: массивы могут быть длиннее size, профили за size читателям не видны.
+     * @param dates - даты по возрастанию
+     * @param profiles - профили
+     * @param size - количество профилей
+     */
+    private record Columns(LocalDate[] dates, Profile[] profiles, int size) {
+    }
+
+    /**
+     * Один профиль: глубины и температуры одинаковой длины.
+     */
+    public record Profile(double[] depths, double[] temperatures) {
+    }
+
+    /**
+     * Словарь дата - профиль поверх массивов.
+     */
+    private class ProfilesView extends AbstractMap<LocalDate, Map<Double, Double>> {
+        @Override
+        public Map<Double, Double> get(Object key) {
+            int index = key instanceof LocalDate date ? indexOf(date) : -1;
+            return index >= 0 ? profileMap(index) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof LocalDate date && indexOf(date) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return TemperatureData.this.size();
+        }
+
+        @Override
+        public Set<Entry<LocalDate, Map<Double, Double>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<LocalDate, Map<Double, Double>>> iterator() {
+                    return new IndexIterator<>(TemperatureData.this.size()) {
+                        @Override
+                        Entry<LocalDate, Map<Double, Double>> get(int index) {
+                            return new SimpleImmutableEntry<>(getDate(index), profileMap(index));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return TemperatureData.this.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * Словарь глубина - температура для одного профиля: представление массивов
+     * или копия, если глубины в профиле повторяются (иначе в словаре были бы одинаковые ключи).
+     */
+    private Map<Double, Double> profileMap(int index) {
+        Profile profile = getProfile(index);
+        if (hasDistinctDepths(profile.depths())) {
+            return new ProfileView(profile);
+        }
+
+        Map<Double, Double> copy = new LinkedHashMap<>();
+        for (int i = 0; i < profile.depths().length; i++) {
+            copy.put(profile.depths()[i], profile.temperatures()[i]);
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static boolean hasDistinctDepths(double[] profileDepths) {
+        boolean increasing = true;
+        for (int i = 1; i < profileDepths.length && increasing; i++) {
+            increasing = profileDepths[i - 1] < profileDepths[i];
+        }
+        if (increasing) {
+            return true;
+        }
+
+        Set<Double> seen = new HashSet<>();
+        for (double depth : profileDepths) {
+            if (!seen.add(depth)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Словарь глубина - температура для одного профиля без повторяющихся глубин.
+     */
+    private static class ProfileView extends AbstractMap<Double, Double> {
+        private final double[] profileDepths;
+        private final double[] profileTemperatures;
+
+        ProfileView(Profile profile) {
+            this.profileDepths = profile.depths();
+            this.profileTemperatures = profile.temperatures();
+        }
+
+        @Override
+        public int size() {
+            return profileDepths.length;
+        }
+
+        @Override
+        public Set<Entry<Double, Double>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Double, Double>> iterator() {
+                    return new IndexIterator<>(profileDepths.length) {
+                        @Override
+                        Entry<Double, Double> get(int index) {
+                            return new SimpleImmutableEntry<>(profileDepths[index], profileTemperatures[index]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return profileDepths.length;
+                }
+            };
+        }
+    }
+
+    /**
+     * Итератор по номерам элементов.
+     */
+    private abstract static class IndexIterator<T> implements Iterator<T> {
+        private final int end;
+        private int next;
+
+        IndexIterator(int end) {
+            this.end = end;
+        }
+
+        abstract T get(int index);
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        public T next() {
+            if (next >= end) {
+                throw new NoSuchElementException();
+            }
+            return get(next++);
+        }
+    }
 }
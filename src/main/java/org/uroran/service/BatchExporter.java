@@ -0,0 +1,360 @@
+package org.uroran.service;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+import org.jfree.chart.JFreeChart;
+import org.uroran.models.Season;
+import org.uroran.models.TemperatureData;
+import org.uroran.service.exporters.ChartExporterFactory;
+import org.uroran.service.exporters.Format;
+import org.uroran.util.ChartDrawer;
+import org.uroran.util.PointParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Пакетный экспорт графиков и данных многих скважин без интерфейса.
+ * Сначала параллельно загружаются все скважины (локальные файлы или директория на сервере из сохраненной сессии),
+ * затем каждый график и каждый файл данных экспортируется отдельной задачей в общем пуле потоков.
+ * Результаты складываются в выходную директорию по поддиректории на скважину: point&lt;номер&gt;/.
+ * Графики рисуются через {@link ChartDrawer}, файлы пишутся экспортерами из {@link ChartExporterFactory},
+ * поэтому запускать нужно с java.awt.headless=true.
+ */
+public class BatchExporter {
+    /**
+     * Что экспортировать.
+     */
+    public enum Output {
+        MONTH, SEASON, FULL, XLSX, REPORT, CSV, BIN
+    }
+
+    private static final String USAGE = """
+            Использование: uran_gui --out <директория> [параметры] [файлы или директории...]
+              --out <директория>         куда складывать результаты (по поддиректории на скважину)
+              --export <список>          что экспортировать через запятую: month, season, full, xlsx, report, csv, bin
+                                         (по умолчанию month,season,full,xlsx)
+              --workers <N>              количество потоков (по умолчанию - количество ядер)
+              --session <имя>            сохраненная сессия для загрузки файлов с сервера
+              --remote-dir <директория>  директория с файлами скважин на сервере (вместе с --session)
+              --help                     эта справка
+            Из локальных директорий берутся файлы, в имени которых есть point и номер скважины.
+            """;
+
+    private final Options options;
+    private final PrintStream out;
+
+    public BatchExporter(Options options, PrintStream out) {
+        this.options = options;
+        this.out = out;
+    }
+
+    /**
+     * Запуск из командной строки.
+     * @param args - аргументы командной строки
+     * @return - код завершения: 0 - все экспортировано, 1 - были ошибки, 2 - неверные аргументы
+     */
+    public static int runCommandLine(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            return 2;
+        }
+        if (options == null) {
+            System.out.print(USAGE);
+            return 0;
+        }
+
+        try {
+            Summary summary = new BatchExporter(options, System.out).run();
+            summary.failures().forEach(failure -> System.err.println("Ошибка: " + failure));
+            System.out.printf("Скважин: %d, файлов: %d, ошибок: %d, время: %.1f с%n",
+                    summary.wells(), summary.files(), summary.failures().size(), summary.seconds());
+            return summary.failures().isEmpty() ? 0 : 1;
+        } catch (Exception e) {
+            System.err.println("Ошибка: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Загрузка скважин и экспорт.
+     * @return - итоги экспорта
+     */
+    public Summary run() throws IOException, JSchException, SftpException, InterruptedException {
+        long start = System.nanoTime();
+        List<String> failures = new ArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.workers());
+        try {
+            Map<Integer, TemperatureData> wells = new TreeMap<>();
+            loadLocal(executor, wells, failures);
+            loadRemote(wells, failures);
+            out.printf("Загружено скважин: %d%n", wells.size());
+
+            List<ExportJob> jobs = new ArrayList<>();
+            for (TemperatureData data : wells.values()) {
+                if (data.isEmpty()) {
+                    failures.add("point" + data.getPointNumber() + ": нет профилей");
+                    continue;
+                }
+                Path wellDir = options.outputDir().resolve("point" + data.getPointNumber());
+                Files.createDirectories(wellDir);
+                addJobs(jobs, data, wellDir);
+            }
+
+            List<Future<Void>> futures = new ArrayList<>(jobs.size());
+            for (ExportJob job : jobs) {
+                futures.add(executor.submit(job.task()));
+            }
+            int files = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                    files++;
+                } catch (ExecutionException e) {
+                    failures.add(jobs.get(i).file() + ": " + e.getCause().getMessage());
+                }
+            }
+
+            return new Summary(wells.size(), files, failures, (System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void loadLocal(ExecutorService executor, Map<Integer, TemperatureData> wells, List<String> failures)
+            throws IOException, InterruptedException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : options.inputs()) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> entries = Files.list(input)) {
+                    entries.filter(Files::isRegularFile)
+                            .filter(path -> WellBatchLoader.DEFAULT_POINT_FILE_PATTERN.matcher(path.getFileName().toString()).matches())
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else {
+                files.add(input);
+            }
+        }
+
+        List<Future<TemperatureData>> futures = new ArrayList<>(files.size());
+        for (Path file : files) {
+            futures.add(executor.submit(() -> loadFile(file)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                TemperatureData data = futures.get(i).get();
+                if (wells.putIfAbsent(data.getPointNumber(), data) != null) {
+                    failures.add(files.get(i) + ": скважина " + data.getPointNumber() + " уже загружена из другого файла");
+                }
+            } catch (ExecutionException e) {
+                failures.add(files.get(i) + ": " + e.getCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * Локальный файл экспортируется целиком, поэтому он отображается в память и все профили декодируются параллельно.
+     */
+    private static TemperatureData loadFile(Path file) throws IOException {
+        return PointParser.parsePointFileParallel(PointParser.parsePointNumber(file.getFileName().toString()), file);
+    }
+
+    private void loadRemote(Map<Integer, TemperatureData> wells, List<String> failures)
+            throws IOException, JSchException, SftpException, InterruptedException {
+        if (options.sessionName() == null) {
+            return;
+        }
+
+        SessionManager sessionManager = new SessionManager(SessionDataService.getInstance().loadSessionData(options.sessionName()));
+        sessionManager.connect();
+        try {
+            WellBatchLoader.Result result = new WellBatchLoader(sessionManager, options.workers())
+                    .load(options.remoteDir(), null);
+            for (TemperatureData data : result.wells().values()) {
+                if (wells.putIfAbsent(data.getPointNumber(), data) != null) {
+                    failures.add(options.remoteDir() + ": скважина " + data.getPointNumber() + " уже загружена из локального файла");
+                }
+            }
+            result.failedFiles().forEach(failed -> failures.add(options.remoteDir() + "/" + failed));
+        } finally {
+            sessionManager.disconnect();
+        }
+    }
+
+    /**
+     * Задачи экспорта одной скважины: по задаче на график и на файл данных.
+     */
+    private void addJobs(List<ExportJob> jobs, TemperatureData data, Path wellDir) {
+        Set<Output> outputs = options.outputs();
+        String prefix = "point" + data.getPointNumber();
+
+        for (int year : data.getYears()) {
+            if (outputs.contains(Output.MONTH)) {
+                for (Month month : data.getMonths(year)) {
+                    LocalDate date = LocalDate.of(year, month, 1);
+                    addChart(jobs, wellDir.resolve(String.format("%s_%d-%02d.png", prefix, year, month.getValue())),
+                            () -> ChartDrawer.createMonthChart(date, data));
+                }
+            }
+            if (outputs.contains(Output.SEASON)) {
+                for (Season season : Season.values()) {
+                    if (data.getProfileIndexes(year, season).length > 0) {
+                        addChart(jobs, wellDir.resolve(prefix + "_" + year + "_" + season.name().toLowerCase(Locale.ROOT) + ".png"),
+                                () -> ChartDrawer.createSeasonChart(season, year, data));
+                    }
+                }
+            }
+        }
+        if (outputs.contains(Output.FULL)) {
+            addChart(jobs, wellDir.resolve(prefix + "_full.png"), () -> ChartDrawer.createFullChart(data));
+        }
+
+        addData(jobs, outputs, Output.XLSX, Format.XLSX, data, wellDir.resolve(prefix + ".xlsx"));
+        addData(jobs, outputs, Output.REPORT, Format.XLSX_REPORT, data, wellDir.resolve(prefix + "_report.xlsx"));
+        addData(jobs, outputs, Output.CSV, Format.CSV, data, wellDir.resolve(prefix + ".csv"));
+        addData(jobs, outputs, Output.BIN, Format.BINARY, data, wellDir.resolve(prefix + ".bin"));
+    }
+
+    private static void addChart(List<ExportJob> jobs, Path file, Callable<JFreeChart> chart) {
+        jobs.add(new ExportJob(file, () -> {
+            ChartExporterFactory.getExporter(Format.PNG).export(chart.call(), file.toFile());
+            return null;
+        }));
+    }
+
+    private static void addData(List<ExportJob> jobs, Set<Output> outputs, Output output, Format format,
+                                TemperatureData data, Path file) {
+        if (outputs.contains(output)) {
+            jobs.add(new ExportJob(file, () -> {
+                ChartExporterFactory.getExporter(format).export(data, file.toFile());
+                return null;
+            }));
+        }
+    }
+
+    private record ExportJob(Path file, Callable<Void> task) {
+    }
+
+    /**
+     * Итоги пакетного экспорта.
+     * @param wells - количество загруженных скважин
+     * @param files - количество записанных файлов
+     * @param failures - файлы, которые не удалось загрузить или записать, с причиной
+     * @param seconds - общее время в секундах
+     */
+    public record Summary(int wells, int files, List<String> failures, double seconds) {
+    }
+
+    /**
+     * Параметры пакетного экспорта.
+     * @param outputDir - выходная директория
+     * @param outputs - что экспортировать
+     * @param workers - количество потоков
+     * @param inputs - локальные файлы скважин и директории с ними
+     * @param sessionName - сохраненная сессия для загрузки с сервера или null
+     * @param remoteDir - директория на сервере или null
+     */
+    public record Options(Path outputDir, Set<Output> outputs, int workers, List<Path> inputs,
+                          String sessionName, String remoteDir) {
+        private static final Set<Output> DEFAULT_OUTPUTS = EnumSet.of(Output.MONTH, Output.SEASON, Output.FULL, Output.XLSX);
+
+        /**
+         * Разбор аргументов командной строки.
+         * @param args - аргументы
+         * @return - параметры или null, если запрошена справка
+         */
+        public static Options parse(String[] args) {
+            Path outputDir = null;
+            Set<Output> outputs = DEFAULT_OUTPUTS;
+            int workers = Runtime.getRuntime().availableProcessors();
+            List<Path> inputs = new ArrayList<>();
+            String sessionName = null;
+            String remoteDir = null;
+
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--help", "-h" -> {
+                        return null;
+                    }
+                    case "--out" -> outputDir = Path.of(value(args, ++i));
+                    case "--export" -> outputs = parseOutputs(value(args, ++i));
+                    case "--workers" -> workers = parseWorkers(value(args, ++i));
+                    case "--session" -> sessionName = value(args, ++i);
+                    case "--remote-dir" -> remoteDir = value(args, ++i);
+                    default -> {
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("Неизвестный параметр: " + args[i]);
+                        }
+                        inputs.add(Path.of(args[i]));
+                    }
+                }
+            }
+
+            if (outputDir == null) {
+                throw new IllegalArgumentException("Не указана выходная директория (--out)");
+            }
+            if ((sessionName == null) != (remoteDir == null)) {
+                throw new IllegalArgumentException("Параметры --session и --remote-dir указываются вместе");
+            }
+            if (inputs.isEmpty() && sessionName == null) {
+                throw new IllegalArgumentException("Не указаны файлы скважин");
+            }
+            return new Options(outputDir, outputs, workers, inputs, sessionName, remoteDir);
+        }
+
+        private static String value(String[] args, int index) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException("Не указано значение параметра " + args[index - 1]);
+            }
+            return args[index];
+        }
+
+        private static Set<Output> parseOutputs(String value) {
+            Set<Output> outputs = EnumSet.noneOf(Output.class);
+            for (String name : value.split(",")) {
+                try {
+                    outputs.add(Output.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Неизвестный вид экспорта: " + name);
+                }
+            }
+            return outputs;
+        }
+
+        private static int parseWorkers(String value) {
+            try {
+                int workers = Integer.parseInt(value);
+                if (workers < 1) {
+                    throw new IllegalArgumentException("Нужен хотя бы один поток");
+                }
+                return workers;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Неверное количество потоков: " + value);
+            }
+        }
+    }
+}
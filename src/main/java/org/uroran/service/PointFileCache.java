@@ -0,0 +1,339 @@
+package org.uroran.service;
+
+import org.uroran.models.TemperatureData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Локальный кэш разобранных файлов с температурами в компактном двоичном формате.
+ * Запись кэша соответствует удаленному пути, а актуальность проверяется по размеру и времени изменения файла на сервере.
+ * Общий размер кэша ограничен, при превышении удаляются записи, которые дольше всего не открывались.
+ * <p>
+ * Формат записи: заголовок (метка, версия, размер и время изменения файла, путь),
+ * затем уникальные сетки глубин и профили (дата, номер сетки, температуры).
+ */
+public class PointFileCache {
+    private static final int MAGIC = 0x55524E43; // URNC
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".bin";
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long maxSizeBytes;
+
+    public PointFileCache(Path directory, long maxSizeBytes) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось создать директорию для кэша: " + directory, e);
+        }
+    }
+
+    /**
+     * Получение данных из кэша.
+     * @param remotePath - путь к файлу на сервере
+     * @param size - размер файла на сервере
+     * @param mTime - время изменения файла на сервере (секунды)
+     * @param pointNumber - номер скважины
+     * @return - данные или null, если записи нет или она устарела.
+     */
+    public TemperatureData get(String remotePath, long size, long mTime, int pointNumber) {
+        Path entry = entryPath(remotePath);
+        if (!Files.exists(entry)) {
+            return null;
+        }
+
+        // Устаревшая или поврежденная запись удаляется уже после закрытия канала
+        TemperatureData data = null;
+        boolean stale;
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            Reader reader = new Reader(channel);
+            stale = reader.readInt() != MAGIC || reader.readInt() != VERSION
+                    || reader.readLong() != size || reader.readLong() != mTime
+                    || !remotePath.equals(reader.readString());
+            if (!stale) {
+                data = new TemperatureData(pointNumber);
+
+                // Каждая сетка начинается с длины, каждый профиль - с даты и номера сетки
+                double[][] grids = new double[reader.readCount(Integer.BYTES)][];
+                for (int i = 0; i < grids.length; i++) {
+                    grids[i] = reader.readDoubles(reader.readCount(Double.BYTES));
+                }
+
+                int profileCount = reader.readCount(2 * Integer.BYTES);
+                for (int i = 0; i < profileCount; i++) {
+                    LocalDate date = LocalDate.ofEpochDay(reader.readInt());
+                    double[] grid = grids[reader.readInt()];
+                    data.addProfile(date, grid, reader.readDoubles(grid.length));
+                }
+
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Поврежденная запись просто считается отсутствующей
+            stale = true;
+        }
+
+        if (stale) {
+            try {
+                Files.deleteIfExists(entry);
+            } catch (IOException ignored) {
+            }
+            return null;
+        }
+        return data;
+    }
+
+    /**
+     * Сохранение данных в кэш.
+     * @param remotePath - путь к файлу на сервере
+     * @param size - размер файла на сервере
+     * @param mTime - время изменения файла на сервере (секунды)
+     * @param data - данные
+     */
+    public void put(String remotePath, long size, long mTime, TemperatureData data) throws IOException {
+        Map<double[], Integer> gridIndexes = new IdentityHashMap<>();
+        List<double[]> grids = new ArrayList<>();
+        for (int i = 0; i < data.size(); i++) {
+            double[] grid = data.getDepths(i);
+            if (!gridIndexes.containsKey(grid)) {
+                gridIndexes.put(grid, grids.size());
+                grids.add(grid);
+            }
+        }
+
+        Path entry = entryPath(remotePath);
+        Path tempEntry = Files.createTempFile(directory, "entry", ".tmp");
+        try (FileChannel channel = FileChannel.open(tempEntry, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = new Writer(channel);
+            writer.writeInt(MAGIC);
+            writer.writeInt(VERSION);
+            writer.writeLong(size);
+            writer.writeLong(mTime);
+            writer.writeString(remotePath);
+
+            writer.writeInt(grids.size());
+            for (double[] grid : grids) {
+                writer.writeInt(grid.length);
+                writer.writeDoubles(grid);
+            }
+
+            writer.writeInt(data.size());
+            for (int i = 0; i < data.size(); i++) {
+                writer.writeInt((int) data.getDate(i).toEpochDay());
+                writer.writeInt(gridIndexes.get(data.getDepths(i)));
+                writer.writeDoubles(data.getTemperatures(i));
+            }
+            writer.flush();
+        } catch (IOException e) {
+            Files.deleteIfExists(tempEntry);
+            throw e;
+        }
+
+        Files.move(tempEntry, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        evict();
+    }
+
+    /**
+     * Удаление записей, которые дольше всего не использовались, пока кэш больше допустимого размера.
+     */
+    private void evict() throws IOException {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(directory)) {
+            entries = files.filter(file -> file.getFileName().toString().endsWith(EXTENSION)).toList();
+        }
+
+        long totalSize = 0;
+        List<Path> byLastUse = new ArrayList<>(entries);
+        Map<Path, FileTime> lastUse = new HashMap<>();
+        for (Path entry : entries) {
+            totalSize += Files.size(entry);
+            lastUse.put(entry, Files.getLastModifiedTime(entry));
+        }
+        byLastUse.sort(Comparator.comparing(lastUse::get));
+
+        for (Path entry : byLastUse) {
+            if (totalSize <= maxSizeBytes) {
+                break;
+            }
+            totalSize -= Files.size(entry);
+            Files.deleteIfExists(entry);
+        }
+    }
+
+    /**
+     * Имя файла записи - хэш удаленного пути.
+     */
+    private Path entryPath(String remotePath) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(remotePath.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash, 0, 16) + EXTENSION);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Буферизированное чтение примитивов из канала.
+     */
+    private static class Reader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+
+        Reader(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        int readInt() throws IOException {
+            require(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        long readLong() throws IOException {
+            require(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        /**
+         * Чтение количества элементов с проверкой, что столько элементов помещается в остаток файла,
+         * чтобы поврежденная запись не приводила к выделению огромного массива.
+         * @param elementBytes - наименьший размер одного элемента в файле
+         */
+        int readCount(int elementBytes) throws IOException {
+            int count = readInt();
+            if (count < 0 || (long) count * elementBytes > remaining()) {
+                throw new IOException("Запись кэша повреждена");
+            }
+            return count;
+        }
+
+        String readString() throws IOException {
+            byte[] bytes = new byte[readCount(1)];
+            int offset = 0;
+            while (offset < bytes.length) {
+                require(1);
+                int count = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.get(bytes, offset, count);
+                offset += count;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        double[] readDoubles(int count) throws IOException {
+            if ((long) count * Double.BYTES > remaining()) {
+                throw new IOException("Запись кэша обрывается");
+            }
+            double[] values = new double[count];
+            int offset = 0;
+            while (offset < count) {
+                require(Double.BYTES);
+                int chunk = Math.min(buffer.remaining() / Double.BYTES, count - offset);
+                buffer.asDoubleBuffer().get(values, offset, chunk);
+                buffer.position(buffer.position() + chunk * Double.BYTES);
+                offset += chunk;
+            }
+            return values;
+        }
+
+        /**
+         * Сколько байт записи еще не прочитано.
+         */
+        private long remaining() throws IOException {
+            return channel.size() - channel.position() + buffer.remaining();
+        }
+
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Запись кэша обрывается");
+                }
+            }
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Буферизированная запись примитивов в канал.
+     */
+    private static class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int count = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, count);
+                offset += count;
+            }
+        }
+
+        void writeDoubles(double[] values) throws IOException {
+            int offset = 0;
+            while (offset < values.length) {
+                ensure(Double.BYTES);
+                int chunk = Math.min(buffer.remaining() / Double.BYTES, values.length - offset);
+                buffer.asDoubleBuffer().put(values, offset, chunk);
+                buffer.position(buffer.position() + chunk * Double.BYTES);
+                offset += chunk;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.uroran.service;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+import lombok.Getter;
+import org.uroran.models.TemperatureData;
+import org.uroran.util.PointParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Класс для слежения за файлом с температурами, который еще дописывается расчетом на сервере.
+ * Запоминает смещение конца последнего полного профиля и при обновлении скачивает только дописанные байты.
+ * Файл читается через собственный SFTP-канал, так как каналы JSch нельзя использовать из нескольких потоков,
+ * а обновления идут в фоне параллельно с работой главного окна. Канал закрывается через {@link #close()}.
+ */
+public class PointFileTail implements AutoCloseable {
+    private final SftpService sftpService;
+    private final String remoteFilePath;
+
+    @Getter
+    private final TemperatureData data;
+    private long offset;
+
+    /**
+     * Открытие отдельного SFTP-канала для слежения.
+     * @param sessionManager - подключенная сессия
+     * @param remoteFilePath - полный путь к файлу на сервере
+     * @param pointNumber - номер скважины
+     */
+    public PointFileTail(SessionManager sessionManager, String remoteFilePath, int pointNumber) throws JSchException, SftpException {
+        this.sftpService = new SftpService(sessionManager.openChannel("sftp"));
+        this.sftpService.connect();
+        this.remoteFilePath = remoteFilePath;
+        this.data = new TemperatureData(pointNumber);
+    }
+
+    /**
+     * Дочитывание новых профилей.
+     * Если файл стал короче (расчет перезапущен), он перечитывается с начала, профили с теми же датами заменяются.
+     * @return - количество добавленных профилей
+     */
+    public int refresh() throws SftpException, IOException {
+        return apply(fetch());
+    }
+
+    /**
+     * Чтение дописанных профилей в отдельные данные, сами данные слежения не меняются.
+     * Можно вызывать в фоне, пока данные читаются другими потоками; результат применяется через {@link #apply}.
+     * Следующее чтение нужно начинать только после применения предыдущего.
+     * @return - прочитанные профили и новое смещение
+     */
+    public Update fetch() throws SftpException, IOException {
+        long size = sftpService.getFileSize(remoteFilePath);
+        long from = size < offset ? 0 : offset;
+
+        TemperatureData appended = new TemperatureData(data.getPointNumber());
+        if (size == from) {
+            return new Update(appended, from);
+        }
+
+        try (InputStream inputStream = sftpService.openInputStream(remoteFilePath, from)) {
+            return new Update(appended, from + PointParser.parseAppendedProfiles(inputStream, appended));
+        }
+    }
+
+    /**
+     * Добавление прочитанных профилей в данные слежения.
+     * @param update - результат {@link #fetch}
+     * @return - количество добавленных профилей
+     */
+    public int apply(Update update) {
+        int before = data.size();
+        data.addProfiles(update.profiles());
+        offset = update.offset();
+        return data.size() - before;
+    }
+
+    /**
+     * Закрытие канала слежения.
+     */
+    @Override
+    public void close() {
+        sftpService.disconnect();
+    }
+
+    /**
+     * Дочитанные профили.
+     * @param profiles - профили
+     * @param offset - смещение конца последнего полного профиля
+     */
+    public record Update(TemperatureData profiles, long offset) {
+        public boolean isEmpty() {
+            return profiles.isEmpty();
+        }
+    }
+}
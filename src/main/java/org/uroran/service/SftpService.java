@@ -3,6 +3,7 @@ package org.uroran.service;
 import com.jcraft.jsch.*;
 import org.uroran.models.SftpEntry;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.*;
 
@@ -34,6 +35,35 @@ public class SftpService {
         channelSftp.get(remoteFilePath.toString(), localFilePath.toString());
     }
 
+    /**
+     * Открытие удаленного файла для потокового чтения без сохранения на диск.
+     * Пока поток не закрыт, другие операции на этом канале выполнять нельзя.
+     * @param remoteFilePath - путь к файлу на сервере
+     * @return - поток с содержимым файла (закрывает вызывающий)
+     */
+    public InputStream openInputStream(Path remoteFilePath) throws SftpException {
+        return channelSftp.get(remoteFilePath.toString());
+    }
+
+    /**
+     * Открытие удаленного файла для потокового чтения с заданного смещения.
+     * @param remoteFilePath - путь к файлу на сервере (в формате сервера)
+     * @param offset - смещение в байтах, с которого начинается чтение
+     * @return - поток с продолжением файла (закрывает вызывающий)
+     */
+    public InputStream openInputStream(String remoteFilePath, long offset) throws SftpException {
+        return channelSftp.get(remoteFilePath, null, offset);
+    }
+
+    /**
+     * Размер удаленного файла.
+     * @param remoteFilePath - путь к файлу на сервере (в формате сервера)
+     * @return - размер в байтах
+     */
+    public long getFileSize(String remoteFilePath) throws SftpException {
+        return channelSftp.stat(remoteFilePath).getSize();
+    }
+
     public void deleteFile(Path remotePath) throws SftpException {
         channelSftp.rm(remotePath.toString());
     }
@@ -47,7 +77,16 @@ public class SftpService {
     }
 
     public List<SftpEntry> listFiles() throws SftpException {
-        Vector<ChannelSftp.LsEntry> entries = channelSftp.ls(channelSftp.pwd());
+        return listFiles(channelSftp.pwd());
+    }
+
+    /**
+     * Список файлов в заданной директории.
+     * @param remoteDir - путь к директории на сервере (в формате сервера)
+     * @return - файлы, отсортированные по типу и имени
+     */
+    public List<SftpEntry> listFiles(String remoteDir) throws SftpException {
+        Vector<ChannelSftp.LsEntry> entries = channelSftp.ls(remoteDir);
         List<SftpEntry> files = new ArrayList<>();
 
         for (var entry : entries) {
@@ -56,14 +95,15 @@ public class SftpService {
 
             var fileAttrs = entry.getAttrs();
             String mTime = fileAttrs.getMtimeString();
-            
+            long size = fileAttrs.getSize();
+            long mTimeSeconds = Integer.toUnsignedLong(fileAttrs.getMTime());
 
             if (fileAttrs.isDir()) {
-                files.add(new SftpEntry(filename, SftpEntry.EntryType.DIRECTORY, mTime));
+                files.add(new SftpEntry(filename, SftpEntry.EntryType.DIRECTORY, mTime, size, mTimeSeconds));
             } else if (fileAttrs.isLink()) {
-                files.add(new SftpEntry(filename, SftpEntry.EntryType.LINK, mTime));
+                files.add(new SftpEntry(filename, SftpEntry.EntryType.LINK, mTime, size, mTimeSeconds));
             } else {
-                files.add(new SftpEntry(filename, SftpEntry.EntryType.FILE, mTime));
+                files.add(new SftpEntry(filename, SftpEntry.EntryType.FILE, mTime, size, mTimeSeconds));
             }
         }
 
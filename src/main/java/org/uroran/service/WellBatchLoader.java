@@ -0,0 +1,227 @@
+package org.uroran.service;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+import org.uroran.models.SftpEntry;
+import org.uroran.models.TemperatureData;
+import org.uroran.util.PointParser;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Пакетная загрузка всех файлов с температурами из директории на сервере.
+ * Файлы скачиваются и разбираются параллельно ограниченным числом потоков, у каждого потока свой SFTP-канал.
+ * Номер скважины берется из имени файла.
+ */
+public class WellBatchLoader {
+    /**
+     * Файлы с температурами по умолчанию: в имени есть слово point и номер скважины.
+     */
+    public static final Pattern DEFAULT_POINT_FILE_PATTERN = PointParser.POINT_FILE_PATTERN;
+
+    private final SessionManager sessionManager;
+    private final int workers;
+    private final Pattern pointFilePattern;
+
+    public WellBatchLoader(SessionManager sessionManager, int workers) {
+        this(sessionManager, workers, DEFAULT_POINT_FILE_PATTERN);
+    }
+
+    public WellBatchLoader(SessionManager sessionManager, int workers, Pattern pointFilePattern) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Нужен хотя бы один поток загрузки");
+        }
+        this.sessionManager = sessionManager;
+        this.workers = workers;
+        this.pointFilePattern = pointFilePattern;
+    }
+
+    /**
+     * Загрузка всех скважин из директории.
+     * @param remoteDir - директория на сервере
+     * @param listener - получатель прогресса (вызывается из потоков загрузки)
+     * @return - скважины по номерам и список файлов, которые не удалось загрузить.
+     */
+    public Result load(String remoteDir, ProgressListener listener) throws JSchException, SftpException, InterruptedException {
+        BlockingQueue<SftpService> channels = new ArrayBlockingQueue<>(workers);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                SftpService sftpService = new SftpService(sessionManager.openChannel("sftp"));
+                sftpService.connect();
+                channels.add(sftpService);
+            }
+
+            List<SftpEntry> pointFiles = new ArrayList<>();
+            long totalBytes = 0;
+            for (SftpEntry entry : channels.peek().listFiles(remoteDir)) {
+                if (entry.getEntryType() == SftpEntry.EntryType.FILE && pointFilePattern.matcher(entry.getName()).matches()) {
+                    pointFiles.add(entry);
+                    totalBytes += entry.getSize();
+                }
+            }
+
+            // Порядок по имени, чтобы при совпадении номеров загруженным всегда оставался один и тот же файл
+            pointFiles.sort(Comparator.comparing(SftpEntry::getName));
+
+            Progress progress = new Progress(pointFiles.size(), totalBytes, listener);
+            List<Future<TemperatureData>> futures = new ArrayList<>();
+            for (SftpEntry entry : pointFiles) {
+                String remotePath = remoteDir + "/" + entry.getName();
+                int pointNumber = PointParser.parsePointNumber(entry.getName());
+                futures.add(executor.submit(() -> loadFile(channels, remotePath, pointNumber, progress)));
+            }
+
+            Map<Integer, TemperatureData> wells = new TreeMap<>();
+            Map<Integer, String> wellFiles = new HashMap<>();
+            List<String> failedFiles = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                String fileName = pointFiles.get(i).getName();
+                try {
+                    TemperatureData data = futures.get(i).get();
+                    String loadedFrom = wellFiles.putIfAbsent(data.getPointNumber(), fileName);
+                    if (loadedFrom != null) {
+                        failedFiles.add(fileName + ": скважина " + data.getPointNumber() + " уже загружена из файла " + loadedFrom);
+                    } else {
+                        wells.put(data.getPointNumber(), data);
+                    }
+                } catch (ExecutionException e) {
+                    failedFiles.add(fileName + ": " + e.getCause().getMessage());
+                }
+            }
+
+            return new Result(wells, failedFiles);
+        } finally {
+            executor.shutdownNow();
+            channels.forEach(SftpService::disconnect);
+        }
+    }
+
+    private static TemperatureData loadFile(BlockingQueue<SftpService> channels, String remotePath, int pointNumber,
+                                            Progress progress) throws InterruptedException, SftpException, IOException {
+        SftpService sftpService = channels.take();
+        try (InputStream inputStream = new CountingInputStream(sftpService.openInputStream(remotePath, 0), progress)) {
+            return PointParser.parseTemperatureData(pointNumber, inputStream);
+        } finally {
+            channels.add(sftpService);
+            progress.fileDone();
+        }
+    }
+
+    /**
+     * Результат пакетной загрузки.
+     * @param wells - скважины, упорядоченные по номеру (при совпадении номеров остается первый файл по имени)
+     * @param failedFiles - файлы, которые не удалось загрузить, и файлы с номером уже загруженной скважины, с причиной
+     */
+    public record Result(Map<Integer, TemperatureData> wells, List<String> failedFiles) {
+    }
+
+    /**
+     * Снимок прогресса загрузки.
+     */
+    public record ProgressSnapshot(int filesDone, int filesTotal, long bytesDone, long bytesTotal,
+                                   double filesPerSecond, double megabytesPerSecond) {
+    }
+
+    /**
+     * Получатель прогресса загрузки.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(ProgressSnapshot snapshot);
+    }
+
+    /**
+     * Счетчики прогресса, общие для всех потоков загрузки.
+     */
+    private static class Progress {
+        private static final long REPORT_INTERVAL_NANOS = 200_000_000L;
+
+        private final int filesTotal;
+        private final long bytesTotal;
+        private final ProgressListener listener;
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicInteger filesDone = new AtomicInteger();
+        private final AtomicLong bytesDone = new AtomicLong();
+        private final AtomicLong lastReportNanos = new AtomicLong();
+
+        Progress(int filesTotal, long bytesTotal, ProgressListener listener) {
+            this.filesTotal = filesTotal;
+            this.bytesTotal = bytesTotal;
+            this.listener = listener;
+        }
+
+        void bytesRead(long count) {
+            bytesDone.addAndGet(count);
+            long now = System.nanoTime();
+            long last = lastReportNanos.get();
+            if (now - last >= REPORT_INTERVAL_NANOS && lastReportNanos.compareAndSet(last, now)) {
+                report(now);
+            }
+        }
+
+        void fileDone() {
+            filesDone.incrementAndGet();
+            report(System.nanoTime());
+        }
+
+        private void report(long now) {
+            if (listener == null) {
+                return;
+            }
+            double seconds = Math.max(now - startNanos, 1) / 1e9;
+            int files = filesDone.get();
+            long bytes = bytesDone.get();
+            listener.onProgress(new ProgressSnapshot(files, filesTotal, bytes, bytesTotal,
+                    files / seconds, bytes / seconds / (1024 * 1024)));
+        }
+    }
+
+    /**
+     * Поток, считающий прочитанные байты.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private final Progress progress;
+
+        CountingInputStream(InputStream in, Progress progress) {
+            super(in);
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                progress.bytesRead(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0) {
+                progress.bytesRead(count);
+            }
+            return count;
+        }
+    }
+}
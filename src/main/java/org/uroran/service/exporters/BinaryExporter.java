@@ -0,0 +1,105 @@
+package org.uroran.service.exporters;
+
+import org.uroran.models.TemperatureData;
+import org.uroran.util.DepthGridResampler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Экспорт данных скважины в компактный двоичный столбцовый формат для чтения из Python/R через memory-map.
+ * Все числа little-endian, секции идут подряд без промежутков:
+ * <pre>
+ * смещение          тип                      содержимое
+ * 0                 char[4]                  "URTD"
+ * 4                 int32                    версия формата (2)
+ * 8                 int32                    номер скважины
+ * 12                int32                    количество профилей N
+ * 16                int32                    количество глубин D
+ * 20                int32                    резерв (0), выравнивает сетку глубин по 8 байтам
+ * 24                float64[D]               сетка глубин
+ * 24 + 8D           float32[N * D]           температуры по строкам: профиль за профилем, NaN - нет значения
+ * 24 + 8D + 4ND     int32[N]                 даты профилей в днях от 1970-01-01, по возрастанию
+ * </pre>
+ * Каждая секция выровнена по размеру своего элемента, поэтому отображается без копирования, например в numpy:
+ * {@code np.memmap(path, '<f8', 'r', offset=24, shape=(D,))} и
+ * {@code np.memmap(path, '<f4', 'r', offset=24 + 8 * D, shape=(N, D))}.
+ * Профили приводятся к общей сетке глубин ({@link DepthGridResampler}).
+ */
+public class BinaryExporter implements ChartExporter {
+    public static final String MAGIC = "URTD";
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 24;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    @Override
+    public void export(Object data, File fileToSave) throws IOException {
+        export(data, fileToSave, ExportProgress.NONE);
+    }
+
+    @Override
+    public void export(Object data, File fileToSave, ExportProgress progress) throws IOException {
+        if (!(data instanceof TemperatureData temperatureData)) {
+            throw new IllegalArgumentException("Неверный тип данных для двоичного экспорта.");
+        }
+        if (temperatureData.isEmpty()) {
+            throw new IllegalArgumentException("Нет данных для экспорта");
+        }
+
+        fileToSave = Format.BINARY.withExtension(fileToSave);
+
+        double[] grid = DepthGridResampler.commonGrid(temperatureData);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, grid.length * Float.BYTES))
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel channel = FileChannel.open(fileToSave.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.put(MAGIC.getBytes(StandardCharsets.US_ASCII));
+            buffer.putInt(VERSION);
+            buffer.putInt(temperatureData.getPointNumber());
+            buffer.putInt(temperatureData.size());
+            buffer.putInt(grid.length);
+            buffer.putInt(0);
+
+            for (double depth : grid) {
+                ensureRemaining(channel, buffer, Double.BYTES);
+                buffer.putDouble(depth);
+            }
+
+            for (int i = 0; i < temperatureData.size(); i++) {
+                ensureRemaining(channel, buffer, grid.length * Float.BYTES);
+                for (double temperature : DepthGridResampler.onGrid(temperatureData, i, grid)) {
+                    buffer.putFloat((float) temperature);
+                }
+                progress.rowsWritten(i + 1, temperatureData.size());
+            }
+
+            for (int i = 0; i < temperatureData.size(); i++) {
+                ensureRemaining(channel, buffer, Integer.BYTES);
+                buffer.putInt((int) temperatureData.getDate(i).toEpochDay());
+            }
+
+            flush(channel, buffer);
+        }
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
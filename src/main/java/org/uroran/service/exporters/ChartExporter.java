@@ -6,4 +6,15 @@ import java.io.IOException;
 
 public interface ChartExporter {
     void export(Object data, File file) throws IOException;
+
+    /**
+     * Экспорт с отчетом о прогрессе по записанным строкам.
+     * Экспортеры без строк (картинки) прогресс не сообщают.
+     * @param data - данные
+     * @param file - файл
+     * @param progress - получатель прогресса
+     */
+    default void export(Object data, File file, ExportProgress progress) throws IOException {
+        export(data, file);
+    }
 }
@@ -1,5 +1,7 @@
 package org.uroran.service.exporters;
 
+import org.uroran.service.SettingsManager;
+
 /**
  * Фабрика экспортеров
  */
@@ -7,7 +9,12 @@ public class ChartExporterFactory {
     public static ChartExporter getExporter(Format format) {
         return switch (format) {
             case Format.PNG -> new PngExporter();
-            case Format.XLSX -> new XlsxExporter();
+            case Format.XLSX -> new XlsxExporter(XlsxExporter.DEFAULT_ROW_WINDOW_SIZE,
+                    Boolean.parseBoolean(new SettingsManager().getSetting("xlsxColumnWidths", "true")));
+            case Format.XLSX_REPORT -> new XlsxReportExporter(XlsxExporter.DEFAULT_ROW_WINDOW_SIZE,
+                    Boolean.parseBoolean(new SettingsManager().getSetting("xlsxColumnWidths", "true")));
+            case Format.CSV -> new CsvExporter();
+            case Format.BINARY -> new BinaryExporter();
         };
     }
 }
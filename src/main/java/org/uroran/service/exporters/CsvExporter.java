@@ -0,0 +1,62 @@
+package org.uroran.service.exporters;
+
+import org.uroran.models.TemperatureData;
+import org.uroran.util.DepthGridResampler;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Экспорт данных скважины в CSV: первая строка - "date" и глубины, дальше строка на профиль,
+ * температуры на общей сетке глубин (см. {@link DepthGridResampler}), пустое поле - нет значения.
+ * Разделитель - запятая, десятичная точка, кодировка UTF-8. Файл пишется потоково через буфер,
+ * строки профиля собираются в одном StringBuilder.
+ */
+public class CsvExporter implements ChartExporter {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    @Override
+    public void export(Object data, File fileToSave) throws IOException {
+        export(data, fileToSave, ExportProgress.NONE);
+    }
+
+    @Override
+    public void export(Object data, File fileToSave, ExportProgress progress) throws IOException {
+        if (!(data instanceof TemperatureData temperatureData)) {
+            throw new IllegalArgumentException("Неверный тип данных для экспорта в CSV.");
+        }
+        if (temperatureData.isEmpty()) {
+            throw new IllegalArgumentException("Нет данных для экспорта");
+        }
+
+        fileToSave = Format.CSV.withExtension(fileToSave);
+
+        double[] grid = DepthGridResampler.commonGrid(temperatureData);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(fileToSave.toPath()), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            StringBuilder line = new StringBuilder(grid.length * 10);
+            line.append("date");
+            for (double depth : grid) {
+                line.append(',').append(depth);
+            }
+            writer.append(line).append('\n');
+
+            for (int i = 0; i < temperatureData.size(); i++) {
+                line.setLength(0);
+                line.append(temperatureData.getDate(i));
+                for (double temperature : DepthGridResampler.onGrid(temperatureData, i, grid)) {
+                    line.append(',');
+                    if (!Double.isNaN(temperature)) {
+                        line.append(temperature);
+                    }
+                }
+                writer.append(line).append('\n');
+                progress.rowsWritten(i + 1, temperatureData.size());
+            }
+        }
+    }
+}
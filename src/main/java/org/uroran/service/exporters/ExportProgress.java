@@ -0,0 +1,19 @@
+package org.uroran.service.exporters;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Получатель прогресса экспорта, вызывается из потока экспорта после каждой записанной строки.
+ * Бросив {@link InterruptedIOException}, получатель отменяет экспорт.
+ */
+@FunctionalInterface
+public interface ExportProgress {
+    ExportProgress NONE = (_, _) -> { };
+
+    /**
+     * @param done - записано строк
+     * @param total - всего строк
+     * @throws InterruptedIOException - если экспорт отменен
+     */
+    void rowsWritten(long done, long total) throws InterruptedIOException;
+}
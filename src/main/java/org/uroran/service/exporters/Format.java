@@ -2,17 +2,31 @@ package org.uroran.service.exporters;
 
 import lombok.Getter;
 
+import java.io.File;
+
 /**
  * Enum для форматов файлов
  */
 @Getter
 public enum Format {
     PNG("png"),
-    XLSX("xlsx");
+    XLSX("xlsx"),
+    XLSX_REPORT("xlsx"),
+    CSV("csv"),
+    BINARY("bin");
 
     private final String name;
 
     Format(String name) {
         this.name = name;
     }
+
+    /**
+     * Файл с расширением формата: если у файла другое расширение, оно дописывается.
+     * @param file - выбранный файл
+     * @return - файл, в который будет записан экспорт
+     */
+    public File withExtension(File file) {
+        return file.getName().toLowerCase().endsWith("." + name) ? file : new File(file.getAbsolutePath() + "." + name);
+    }
 }
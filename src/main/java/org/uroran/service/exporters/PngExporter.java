@@ -2,23 +2,35 @@ package org.uroran.service.exporters;
 
 import org.jfree.chart.JFreeChart;
 
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 
 /**
- * PNG экспорт графиков
+ * PNG экспорт графиков.
+ * Принимает график или уже нарисованную картинку: график, который показан на экране, нужно рисовать
+ * в потоке EDT ({@link JFreeChart#createBufferedImage(int, int)}) и передавать сюда картинку.
  */
 public class PngExporter implements ChartExporter {
+    public static final int WIDTH = 800;
+    public static final int HEIGHT = 600;
+
     @Override
     public void export(Object chart, File fileToSave) throws IOException {
+        fileToSave = Format.PNG.withExtension(fileToSave);
+        if (chart instanceof BufferedImage image) {
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(fileToSave.toPath()))) {
+                org.jfree.chart.ChartUtils.writeBufferedImageAsPNG(outputStream, image);
+            }
+            return;
+        }
         if (!(chart instanceof JFreeChart)) {
             throw new IllegalArgumentException("Неверный тип данных для экспорта в PNG.");
         }
 
-        if (!fileToSave.getName().toLowerCase().endsWith(".png")) {
-            fileToSave = new File(fileToSave.getAbsolutePath() + ".png");
-        }
-
-        org.jfree.chart.ChartUtils.saveChartAsPNG(fileToSave, (JFreeChart) chart, 800, 600);
+        org.jfree.chart.ChartUtils.saveChartAsPNG(fileToSave, (JFreeChart) chart, WIDTH, HEIGHT);
     }
 }
@@ -1,93 +1,157 @@
 package org.uroran.service.exporters;
 
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.uroran.models.ProfileStatistics;
 import org.uroran.models.TemperatureData;
+import org.uroran.util.DepthGridResampler;
+import org.uroran.util.FreezeFrontSeries;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.time.LocalDate;
-import java.util.Map;
 
 /**
- * Экспорт файлов в XLSX формат (Apache POI)
+ * Экспорт файлов в XLSX формат (Apache POI).
+ * Книга пишется потоково ({@link SXSSFWorkbook}): в памяти держится только окно из последних строк,
+ * остальные сбрасываются во временный файл, поэтому память не растет с количеством профилей.
+ * Ширина столбцов считается по длине записанных значений за тот же проход (autoSizeColumn не используется).
+ * Экспортируются данные скважины ({@link TemperatureData}) или статистика по глубинам ({@link ProfileStatistics}).
+ * Профили с разными сетками глубин приводятся к общей равномерной сетке, так что столбцы глубин есть у всех строк.
+ * В таблице данных скважины последний столбец - глубина фронта промерзания (изотермы 0 °C) профиля.
  */
 public class XlsxExporter implements ChartExporter{
+    public static final int DEFAULT_ROW_WINDOW_SIZE = 100;
+
+    static final String FREEZE_FRONT_HEADER = "0 °C depth, m";
+    private static final String[] STATISTICS_HEADERS = {"Depth", "Count", "Mean", "Min", "Max", "P10", "Median", "P90"};
+
+    private final int rowWindowSize;
+    private final boolean sizeColumns;
+
+    public XlsxExporter() {
+        this(DEFAULT_ROW_WINDOW_SIZE, true);
+    }
+
+    /**
+     * @param rowWindowSize - сколько последних строк держать в памяти
+     * @param sizeColumns - подбирать ширину столбцов по данным (иначе ширина по умолчанию)
+     */
+    public XlsxExporter(int rowWindowSize, boolean sizeColumns) {
+        this.rowWindowSize = rowWindowSize;
+        this.sizeColumns = sizeColumns;
+    }
+
     @Override
     public void export(Object data, File fileToSave) throws IOException {
-        if (!(data instanceof TemperatureData)) {
+        export(data, fileToSave, ExportProgress.NONE);
+    }
+
+    @Override
+    public void export(Object data, File fileToSave, ExportProgress progress) throws IOException {
+        if (!(data instanceof TemperatureData) && !(data instanceof ProfileStatistics)) {
             throw new IllegalArgumentException("Неверный тип данных для экспорта в XLSX.");
         }
 
         // Проверяем и добавляем расширение файла, если нужно
-        if (!fileToSave.getName().toLowerCase().endsWith(".xlsx")) {
-            fileToSave = new File(fileToSave.getAbsolutePath() + ".xlsx");
+        fileToSave = Format.XLSX.withExtension(fileToSave);
+
+        if (data instanceof ProfileStatistics statistics) {
+            exportStatistics(statistics, fileToSave);
+            return;
         }
 
-        // Создаем workbook и sheet
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Temperature Data");
+        TemperatureData temperatureData = (TemperatureData) data;
+        if (temperatureData.isEmpty()) {
+            throw new IllegalArgumentException("Нет данных для экспорта");
+        }
 
-            // Создаем стили для ячеек (опционально)
-            CellStyle headerStyle = workbook.createCellStyle();
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            headerStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
+        // Общая сетка глубин всех профилей
+        double[] depths = DepthGridResampler.commonGrid(temperatureData);
+        if (depths.length == 0) {
+            throw new IllegalArgumentException("Нет данных о глубинах");
+        }
+
+        // Создаем workbook и sheet
+        SXSSFWorkbook workbook = createWorkbook();
+        try {
+            XlsxSheet sheet = new XlsxSheet(workbook, "Temperature Data", XlsxSheet.createHeaderStyle(workbook));
 
             // Создаем заголовки: первый столбец — даты, первая строка — глубины
-            Map<LocalDate, Map<Double, Double>> temperatureData = ((TemperatureData) data).getData();
-            if (temperatureData.isEmpty()) {
-                throw new IllegalArgumentException("Нет данных для экспорта");
+            int frontColumn = depths.length + 1;
+            Row headerRow = sheet.nextRow();
+            sheet.header(headerRow, 0, "Date");
+            for (int j = 0; j < depths.length; j++) {
+                sheet.header(headerRow, j + 1, depths[j] + " m");
             }
+            sheet.header(headerRow, frontColumn, FREEZE_FRONT_HEADER);
 
-            Row headerRow = sheet.createRow(0); // Первая строка для заголовков
-            headerRow.createCell(0).setCellValue("Date"); // Первый столбец для дат
+            // Добавляем строки с данными
+            for (int i = 0; i < temperatureData.size(); i++) {
+                Row row = sheet.nextRow();
+                sheet.text(row, 0, temperatureData.getDate(i).toString()); // Первая ячейка — дата
 
-            // Собираем все глубины
-            Map.Entry<LocalDate, Map<Double, Double>> firstEntry = temperatureData.entrySet().iterator().next();
-            Map<Double, Double> depths = firstEntry.getValue();
-            if (depths == null || depths.isEmpty()) {
-                throw new IllegalArgumentException("Нет данных о глубинах");
+                double[] temperatures = DepthGridResampler.onGrid(temperatureData, i, depths);
+                for (int j = 0; j < depths.length; j++) {
+                    sheet.number(row, j + 1, temperatures[j]);
+                }
+                sheet.number(row, frontColumn, FreezeFrontSeries.frontDepth(depths, temperatures));
+                progress.rowsWritten(i + 1, temperatureData.size());
             }
 
-            int colIndex = 1;
-            for (Double depth : depths.keySet()) {
-                Cell cell = headerRow.createCell(colIndex++);
-                cell.setCellValue(depth + " m"); // Добавляем заголовки глубин
-                cell.setCellStyle(headerStyle);
-            }
+            write(workbook, fileToSave, sheet);
+        } finally {
+            workbook.dispose();
+        }
+    }
 
-            // Добавляем строки с данными
-            int rowIndex = 1;
-            for (Map.Entry<LocalDate, Map<Double, Double>> entry : temperatureData.entrySet()) {
-                LocalDate date = entry.getKey();
-                Map<Double, Double> temperatureMap = entry.getValue();
-
-                Row row = sheet.createRow(rowIndex++);
-                row.createCell(0).setCellValue(date.toString()); // Первая ячейка — дата
-
-                colIndex = 1;
-                for (Double depth : depths.keySet()) {
-                    Double temperature = temperatureMap.getOrDefault(depth, null);
-                    if (temperature != null) {
-                        row.createCell(colIndex).setCellValue(temperature);
-                    }
-                    colIndex++;
+    /**
+     * Экспорт статистики: строка на каждую глубину, столбцы - количество значений, среднее, минимум, максимум и процентили.
+     * @param statistics - статистика
+     * @param fileToSave - файл
+     */
+    private void exportStatistics(ProfileStatistics statistics, File fileToSave) throws IOException {
+        SXSSFWorkbook workbook = createWorkbook();
+        try {
+            XlsxSheet sheet = new XlsxSheet(workbook, "Statistics", XlsxSheet.createHeaderStyle(workbook));
+            sheet.caption(statistics.title() + " (profiles: " + statistics.profileCount() + ")");
+            sheet.headerRow(STATISTICS_HEADERS);
+
+            double[][] columns = {statistics.mean(), statistics.min(), statistics.max(),
+                    statistics.p10(), statistics.median(), statistics.p90()};
+            for (int j = 0; j < statistics.depths().length; j++) {
+                Row row = sheet.nextRow();
+                sheet.number(row, 0, statistics.depths()[j]);
+                sheet.number(row, 1, statistics.counts()[j]);
+                for (int c = 0; c < columns.length; c++) {
+                    sheet.number(row, c + 2, columns[c][j]);
                 }
             }
 
-            // Авторазмер столбцов
-            for (int i = 0; i <= depths.size(); i++) {
-                sheet.autoSizeColumn(i);
-            }
+            write(workbook, fileToSave, sheet);
+        } finally {
+            workbook.dispose();
+        }
+    }
 
-            // Сохраняем файл
-            try (FileOutputStream outputStream = new FileOutputStream(fileToSave)) {
-                workbook.write(outputStream);
+    /**
+     * Потоковая книга с окном строк экспортера.
+     */
+    SXSSFWorkbook createWorkbook() {
+        return new SXSSFWorkbook(rowWindowSize);
+    }
+
+    /**
+     * Установка ширины столбцов и запись книги в файл.
+     */
+    void write(SXSSFWorkbook workbook, File fileToSave, XlsxSheet... sheets) throws IOException {
+        if (sizeColumns) {
+            for (XlsxSheet sheet : sheets) {
+                sheet.applyColumnWidths();
             }
         }
+        try (FileOutputStream outputStream = new FileOutputStream(fileToSave)) {
+            workbook.write(outputStream);
+        }
     }
 }
@@ -0,0 +1,265 @@
+package org.uroran.service.exporters;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.uroran.models.Season;
+import org.uroran.models.TemperatureData;
+import org.uroran.util.DepthGridResampler;
+import org.uroran.util.FreezeFrontSeries;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Экспорт отчета по скважине в XLSX: лист с сезонными средними, минимумами и максимумами по глубинам,
+ * лист со сводкой по фронту промерзания за каждый год и по листу профилей на каждый год.
+ * Все листы пишутся за один проход по профилям в порядке дат: строки профиля сразу уходят в лист его года,
+ * а сезонные и годовые итоги накапливаются и записываются, когда год заканчивается.
+ * Сезоны берутся внутри календарного года, как в {@link TemperatureData#getProfileIndexes(int, Season)}.
+ */
+public class XlsxReportExporter extends XlsxExporter {
+    private static final String[] SEASON_STATISTICS = {"Mean", "Min", "Max"};
+    private static final String[] FREEZE_FRONT_HEADERS = {"Year", "Profiles", "Profiles with 0 °C",
+            "Mean depth, m", "Min depth, m", "Max depth, m", "Max depth date"};
+
+    public XlsxReportExporter() {
+        super();
+    }
+
+    /**
+     * @param rowWindowSize - сколько последних строк каждого листа держать в памяти
+     * @param sizeColumns - подбирать ширину столбцов по данным
+     */
+    public XlsxReportExporter(int rowWindowSize, boolean sizeColumns) {
+        super(rowWindowSize, sizeColumns);
+    }
+
+    @Override
+    public void export(Object data, File fileToSave) throws IOException {
+        export(data, fileToSave, ExportProgress.NONE);
+    }
+
+    @Override
+    public void export(Object data, File fileToSave, ExportProgress progress) throws IOException {
+        if (!(data instanceof TemperatureData temperatureData)) {
+            throw new IllegalArgumentException("Неверный тип данных для отчета в XLSX.");
+        }
+        if (temperatureData.isEmpty()) {
+            throw new IllegalArgumentException("Нет данных для экспорта");
+        }
+
+        double[] grid = DepthGridResampler.commonGrid(temperatureData);
+        if (grid.length == 0) {
+            throw new IllegalArgumentException("Нет данных о глубинах");
+        }
+
+        SXSSFWorkbook workbook = createWorkbook();
+        try {
+            ReportWriter reportWriter = new ReportWriter(workbook, grid);
+            reportWriter.write(temperatureData, progress);
+            write(workbook, Format.XLSX_REPORT.withExtension(fileToSave), reportWriter.sheets.toArray(XlsxSheet[]::new));
+        } finally {
+            workbook.dispose();
+        }
+    }
+
+    /**
+     * Запись листов отчета. Итоги хранятся только за текущий год.
+     */
+    private static class ReportWriter {
+        private final SXSSFWorkbook workbook;
+        private final double[] grid;
+        private final CellStyle headerStyle;
+        private final XlsxSheet seasonSheet;
+        private final XlsxSheet freezeSheet;
+        private final List<XlsxSheet> sheets = new ArrayList<>();
+
+        private int year;
+        private XlsxSheet yearSheet;
+        private final Map<Season, DepthAccumulator> seasons = new EnumMap<>(Season.class);
+        private final FrontAccumulator front = new FrontAccumulator();
+
+        ReportWriter(SXSSFWorkbook workbook, double[] grid) {
+            this.workbook = workbook;
+            this.grid = grid;
+            this.headerStyle = XlsxSheet.createHeaderStyle(workbook);
+
+            seasonSheet = addSheet("Seasons");
+            Row seasonHeader = seasonSheet.nextRow();
+            String[] seasonHeaders = {"Year", "Season", "Statistic", "Profiles"};
+            for (int c = 0; c < seasonHeaders.length; c++) {
+                seasonSheet.header(seasonHeader, c, seasonHeaders[c]);
+            }
+            for (int j = 0; j < grid.length; j++) {
+                seasonSheet.header(seasonHeader, seasonHeaders.length + j, grid[j] + " m");
+            }
+
+            freezeSheet = addSheet("Freeze Front");
+            freezeSheet.headerRow(FREEZE_FRONT_HEADERS);
+        }
+
+        void write(TemperatureData data, ExportProgress progress) throws InterruptedIOException {
+            for (int i = 0; i < data.size(); i++) {
+                LocalDate date = data.getDate(i);
+                if (yearSheet == null || date.getYear() != year) {
+                    finishYear();
+                    startYear(date.getYear());
+                }
+
+                double[] temperatures = DepthGridResampler.onGrid(data, i, grid);
+                double frontDepth = FreezeFrontSeries.frontDepth(grid, temperatures);
+
+                Row row = yearSheet.nextRow();
+                yearSheet.text(row, 0, date.toString());
+                for (int j = 0; j < grid.length; j++) {
+                    yearSheet.number(row, j + 1, temperatures[j]);
+                }
+                yearSheet.number(row, grid.length + 1, frontDepth);
+
+                seasons.computeIfAbsent(Season.getSeason(date.getMonth()), _ -> new DepthAccumulator(grid.length)).add(temperatures);
+                front.add(frontDepth, date);
+                progress.rowsWritten(i + 1, data.size());
+            }
+            finishYear();
+        }
+
+        private void startYear(int newYear) {
+            year = newYear;
+            yearSheet = addSheet(String.valueOf(year));
+            Row header = yearSheet.nextRow();
+            yearSheet.header(header, 0, "Date");
+            for (int j = 0; j < grid.length; j++) {
+                yearSheet.header(header, j + 1, grid[j] + " m");
+            }
+            yearSheet.header(header, grid.length + 1, FREEZE_FRONT_HEADER);
+        }
+
+        /**
+         * Запись итогов закончившегося года в листы сезонов и фронта промерзания.
+         */
+        private void finishYear() {
+            if (yearSheet == null) {
+                return;
+            }
+
+            for (Map.Entry<Season, DepthAccumulator> entry : seasons.entrySet()) {
+                DepthAccumulator accumulator = entry.getValue();
+                double[][] values = {accumulator.mean(), accumulator.min, accumulator.max};
+                for (int s = 0; s < SEASON_STATISTICS.length; s++) {
+                    Row row = seasonSheet.nextRow();
+                    seasonSheet.number(row, 0, year);
+                    seasonSheet.text(row, 1, entry.getKey().getRussianTranslation());
+                    seasonSheet.text(row, 2, SEASON_STATISTICS[s]);
+                    seasonSheet.number(row, 3, accumulator.profiles);
+                    for (int j = 0; j < grid.length; j++) {
+                        seasonSheet.number(row, 4 + j, values[s][j]);
+                    }
+                }
+            }
+            seasons.clear();
+
+            Row row = freezeSheet.nextRow();
+            freezeSheet.number(row, 0, year);
+            freezeSheet.number(row, 1, front.profiles);
+            freezeSheet.number(row, 2, front.count);
+            if (front.count > 0) {
+                freezeSheet.number(row, 3, front.sum / front.count);
+                freezeSheet.number(row, 4, front.min);
+                freezeSheet.number(row, 5, front.max);
+                freezeSheet.text(row, 6, front.maxDate.toString());
+            }
+            front.reset();
+        }
+
+        private XlsxSheet addSheet(String name) {
+            XlsxSheet sheet = new XlsxSheet(workbook, name, headerStyle);
+            sheets.add(sheet);
+            return sheet;
+        }
+    }
+
+    /**
+     * Сумма, минимум и максимум по глубинам за сезон.
+     */
+    private static class DepthAccumulator {
+        private final double[] sum;
+        private final int[] count;
+        private final double[] min;
+        private final double[] max;
+        private int profiles;
+
+        DepthAccumulator(int depths) {
+            sum = new double[depths];
+            count = new int[depths];
+            min = new double[depths];
+            max = new double[depths];
+            Arrays.fill(min, Double.NaN);
+            Arrays.fill(max, Double.NaN);
+        }
+
+        void add(double[] temperatures) {
+            profiles++;
+            for (int j = 0; j < temperatures.length; j++) {
+                double value = temperatures[j];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                sum[j] += value;
+                min[j] = count[j] == 0 ? value : Math.min(min[j], value);
+                max[j] = count[j] == 0 ? value : Math.max(max[j], value);
+                count[j]++;
+            }
+        }
+
+        double[] mean() {
+            double[] mean = new double[sum.length];
+            for (int j = 0; j < mean.length; j++) {
+                mean[j] = count[j] > 0 ? sum[j] / count[j] : Double.NaN;
+            }
+            return mean;
+        }
+    }
+
+    /**
+     * Итоги по глубине фронта промерзания за год.
+     */
+    private static class FrontAccumulator {
+        private int profiles;
+        private int count;
+        private double sum;
+        private double min;
+        private double max;
+        private LocalDate maxDate;
+
+        void add(double depth, LocalDate date) {
+            profiles++;
+            if (Double.isNaN(depth)) {
+                return;
+            }
+            if (count == 0 || depth < min) {
+                min = depth;
+            }
+            if (count == 0 || depth > max) {
+                max = depth;
+                maxDate = date;
+            }
+            sum += depth;
+            count++;
+        }
+
+        void reset() {
+            profiles = 0;
+            count = 0;
+            sum = 0;
+            maxDate = null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.uroran.service.exporters;
+
+import org.apache.poi.ss.usermodel.*;
+
+import java.util.Arrays;
+
+/**
+ * Лист потоковой XLSX книги, который пишется строка за строкой сверху вниз.
+ * Попутно запоминает самое длинное значение в каждом столбце, чтобы выставить ширину столбцов без autoSizeColumn.
+ */
+final class XlsxSheet {
+    private static final int MAX_COLUMN_WIDTH_CHARS = 60;
+    private static final int MAX_NUMBER_WIDTH_CHARS = 12;
+
+    private final Sheet sheet;
+    private final CellStyle headerStyle;
+    private final CellStyle valueStyle;
+    private int[] chars = new int[16];
+    private int rowIndex;
+
+    /**
+     * @param workbook - книга
+     * @param name - название листа
+     * @param headerStyle - стиль заголовков (см. {@link #createHeaderStyle})
+     */
+    XlsxSheet(Workbook workbook, String name, CellStyle headerStyle) {
+        this.sheet = workbook.createSheet(name);
+        this.headerStyle = headerStyle;
+        // Явный стиль у ячеек значений: иначе при записи каждой ячейки POI ищет стиль столбца в XML листа
+        this.valueStyle = workbook.getCellStyleAt(0);
+    }
+
+    /**
+     * Стиль заголовков: жирный шрифт по центру.
+     */
+    static CellStyle createHeaderStyle(Workbook workbook) {
+        CellStyle headerStyle = workbook.createCellStyle();
+        headerStyle.setAlignment(HorizontalAlignment.CENTER);
+        headerStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        headerStyle.setFont(headerFont);
+        return headerStyle;
+    }
+
+    /**
+     * Следующая строка листа.
+     */
+    Row nextRow() {
+        return sheet.createRow(rowIndex++);
+    }
+
+    /**
+     * Строка-подпись в первом столбце, которая не влияет на ширину столбца.
+     */
+    void caption(String value) {
+        nextRow().createCell(0).setCellValue(value);
+    }
+
+    /**
+     * Строка заголовков.
+     */
+    void headerRow(String... values) {
+        Row row = nextRow();
+        for (int column = 0; column < values.length; column++) {
+            header(row, column, values[column]);
+        }
+    }
+
+    void header(Row row, int column, String value) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(headerStyle);
+        measure(column, value.length());
+    }
+
+    void text(Row row, int column, String value) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(valueStyle);
+        measure(column, value.length());
+    }
+
+    /**
+     * Запись числа; для NaN ячейка не создается.
+     */
+    void number(Row row, int column, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(valueStyle);
+        // Формат "General" показывает не больше 11 знаков числа
+        measure(column, Math.min(MAX_NUMBER_WIDTH_CHARS, numberLength(value)));
+    }
+
+    /**
+     * Установка ширины столбцов по самым длинным записанным значениям.
+     */
+    void applyColumnWidths() {
+        for (int column = 0; column < chars.length; column++) {
+            if (chars[column] > 0) {
+                // Ширина столбца задается в 1/256 ширины символа, плюс поля по символу с каждой стороны
+                int width = Math.min(MAX_COLUMN_WIDTH_CHARS, chars[column] + 2);
+                sheet.setColumnWidth(column, width * 256);
+            }
+        }
+    }
+
+    private void measure(int column, int length) {
+        if (column >= chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(column + 1, chars.length * 2));
+        }
+        chars[column] = Math.max(chars[column], length);
+    }
+
+    private static int numberLength(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value).length();
+        }
+        return Double.toString(value).length();
+    }
+}
@@ -0,0 +1,127 @@
+package org.uroran.util;
+
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.Plot;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.xy.XYDataset;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кэш построенных графиков с вытеснением давно не использовавшихся.
+ * Размер графика оценивается по количеству точек в его наборах данных,
+ * при превышении бюджета памяти удаляются графики, которые дольше всего не открывались.
+ */
+public class ChartCache {
+    /**
+     * Примерный размер одной точки XYSeries в памяти: объект XYDataItem, два Double и ссылка в списке.
+     */
+    private static final long BYTES_PER_ITEM = 64;
+
+    /**
+     * Примерный размер серии {@link ProfileXYDataset}: точки не копируются, остаются только ключ и ссылки на массивы.
+     */
+    private static final long BYTES_PER_PROFILE_SERIES = 128;
+
+    private final long maxSizeBytes;
+    private final Map<ChartKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+
+    public ChartCache(long maxSizeBytes) {
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Получение графика из кэша.
+     * @param key - ключ графика
+     * @return - график или null, если его нет в кэше.
+     */
+    public JFreeChart get(ChartKey key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.chart() : null;
+    }
+
+    /**
+     * Сохранение графика в кэш. График больше всего бюджета не сохраняется.
+     * @param key - ключ графика
+     * @param chart - график
+     */
+    public void put(ChartKey key, JFreeChart chart) {
+        long chartSize = estimateSize(chart);
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            sizeBytes -= previous.sizeBytes();
+        }
+        if (chartSize > maxSizeBytes) {
+            return;
+        }
+
+        entries.put(key, new Entry(chart, chartSize));
+        sizeBytes += chartSize;
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (sizeBytes > maxSizeBytes && iterator.hasNext()) {
+            sizeBytes -= iterator.next().sizeBytes();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Очистка кэша (например, после изменения данных).
+     */
+    public void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    /**
+     * Оценка размера графика в памяти.
+     * @param chart - график
+     * @return - размер в байтах
+     */
+    static long estimateSize(JFreeChart chart) {
+        Plot plot = chart.getPlot();
+        if (!(plot instanceof XYPlot xyPlot)) {
+            return 0;
+        }
+
+        long bytes = 0;
+        if (xyPlot.getBackgroundImage() instanceof BufferedImage image) {
+            bytes += (long) image.getWidth() * image.getHeight() * Integer.BYTES;
+        }
+
+        long items = 0;
+        for (int i = 0; i < xyPlot.getDatasetCount(); i++) {
+            XYDataset dataset = xyPlot.getDataset(i);
+            if (dataset == null) {
+                continue;
+            }
+            if (dataset instanceof ProfileXYDataset) {
+                bytes += dataset.getSeriesCount() * BYTES_PER_PROFILE_SERIES;
+                if (dataset instanceof DownsampledProfileDataset) {
+                    // Номера выбранных точек прореженного набора
+                    for (int series = 0; series < dataset.getSeriesCount(); series++) {
+                        bytes += (long) dataset.getItemCount(series) * Integer.BYTES;
+                    }
+                }
+                continue;
+            }
+            for (int series = 0; series < dataset.getSeriesCount(); series++) {
+                items += dataset.getItemCount(series);
+            }
+        }
+        return bytes + items * BYTES_PER_ITEM;
+    }
+
+    /**
+     * Ключ графика: тип, год и значение (месяц или сезон), как они выбраны в окне.
+     */
+    public record ChartKey(String type, String year, String value) {
+    }
+
+    private record Entry(JFreeChart chart, long sizeBytes) {
+    }
+}
@@ -3,26 +3,98 @@ package org.uroran.util;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
+import org.jfree.chart.LegendItem;
+import org.jfree.chart.LegendItemCollection;
+import org.jfree.chart.axis.DateAxis;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.event.AxisChangeEvent;
+import org.jfree.chart.event.AxisChangeListener;
+import org.jfree.chart.plot.DefaultDrawingSupplier;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.DeviationRenderer;
+import org.jfree.chart.renderer.xy.XYItemRenderer;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.chart.title.PaintScaleLegend;
+import org.jfree.chart.ui.Align;
+import org.jfree.chart.ui.RectangleEdge;
+import org.jfree.data.Range;
+import org.jfree.data.xy.DefaultXYDataset;
+import org.uroran.models.ProfileStatistics;
 import org.uroran.models.Season;
 import org.uroran.models.TemperatureData;
 
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferedImage;
 import java.time.LocalDate;
 import java.time.Month;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 /**
- * Класс, содержащий методы для отрисовки панели с графиком
+ * Класс, содержащий методы для отрисовки панели с графиком.
+ * Методы create* только строят график и не трогают Swing, поэтому их можно вызывать в фоновом потоке;
+ * если поток прерван, построение останавливается с {@link CancellationException}.
+ * Методы draw* дополнительно оборачивают график в панель и должны вызываться в потоке EDT.
+ * Наборы данных графиков ({@link ProfileXYDataset}) ссылаются на массивы скважины и не копируют точки.
+ * Полный график строится на прореженном наборе данных ({@link DownsampledProfileDataset}),
+ * поэтому панель для него нужно создавать через {@link #createPanel}.
  */
 public final class ChartDrawer {
+    private static final int HEATMAP_WIDTH = 1200;
+    private static final int HEATMAP_HEIGHT = 600;
+    private static final double MILLIS_PER_DAY = 86_400_000.0;
+    private static final Paint[] COMPARISON_PAINTS = DefaultDrawingSupplier.DEFAULT_PAINT_SEQUENCE;
+
     private ChartDrawer() {
     }
 
     public static ChartPanel drawMonthChart(LocalDate date, TemperatureData data) {
-        XYSeriesCollection dataset = new XYSeriesCollection();
-        var monthData = data.getData().get(date);
-        addTemperatureDataToDataset(dataset, date, monthData);
+        return createPanel(createMonthChart(date, data));
+    }
+
+    public static ChartPanel drawSeasonChart(Season season, int year, TemperatureData data) {
+        return createPanel(createSeasonChart(season, year, data));
+    }
+
+    public static ChartPanel drawFullChart(TemperatureData data) {
+        return createPanel(createFullChart(data));
+    }
+
+    /**
+     * Создание панели для графика (в потоке EDT).
+     * Если график прореживается, его точки пересчитываются при изменении ширины панели.
+     * @param chart - график
+     * @return - панель
+     */
+    public static ChartPanel createPanel(JFreeChart chart) {
+        ChartPanel panel = new ChartPanel(chart);
+        if (chart.getXYPlot().getDataset() instanceof DownsampledProfileDataset dataset) {
+            panel.addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    if (panel.getChart() == chart) {
+                        dataset.setTargetWidth(panel.getWidth());
+                    }
+                }
+            });
+        }
+        return panel;
+    }
+
+    /**
+     * Построение графика за месяц.
+     * @param date - любая дата месяца
+     * @param data - данные
+     * @return - график
+     */
+    public static JFreeChart createMonthChart(LocalDate date, TemperatureData data) {
+        ProfileXYDataset dataset = createDataset(data, data.getProfileIndexes(date.getYear(), date.getMonth()));
 
         JFreeChart chart = ChartFactory.createXYLineChart(
                 "Температура за " + date.getMonth().toString() + " " + date.getYear(),
@@ -32,55 +104,383 @@ public final class ChartDrawer {
         );
 
         chart.getXYPlot().getDomainAxis().setRange(0.0, 12.0);
-        return new ChartPanel(chart);
+        return chart;
     }
 
-    public static ChartPanel drawSeasonChart(Season season, int year, TemperatureData data) {
-        XYSeriesCollection dataset = new XYSeriesCollection();
-
-        var validDates = data.getData().entrySet().stream()
-                .filter(date -> Season.getSeason(date.getKey().getMonth()) == season && date.getKey().getYear() == year)
-                .toList();
-        validDates.forEach(date -> addTemperatureDataToDataset(dataset, date.getKey(), date.getValue()));
+    /**
+     * Построение графика за сезон.
+     * @param season - сезон
+     * @param year - год
+     * @param data - данные
+     * @return - график
+     */
+    public static JFreeChart createSeasonChart(Season season, int year, TemperatureData data) {
+        ProfileXYDataset dataset = createDataset(data, data.getProfileIndexes(year, season));
 
-        JFreeChart chart = ChartFactory.createXYLineChart(
+        return ChartFactory.createXYLineChart(
                 "Температура за " + season.getRussianTranslation() + " " + year,
                 "Дата",
                 "Температура",
                 dataset
         );
-        return new ChartPanel(chart);
     }
 
-    public static ChartPanel drawFullChart(TemperatureData data) {
-        XYSeriesCollection dataset = new XYSeriesCollection();
-        for (Map.Entry<LocalDate, Map<Double, Double>> entry : data.getData().entrySet()) {
-            LocalDate date = entry.getKey();
-            addTemperatureDataToDataset(dataset, date, entry.getValue());
+    /**
+     * Построение графика за весь период.
+     * От каждого профиля на экран попадает не больше нескольких точек на пиксель ширины;
+     * если профилей много, рисуется огибающая по всем профилям и их равномерная выборка (см. {@link DownsampledProfileDataset}).
+     * При увеличении масштаба видимая часть пересчитывается с большей детализацией, вплоть до всех профилей.
+     * Набор рисуемых профилей тогда меняется с масштабом, поэтому в легенде остается только огибающая.
+     * @param data - данные
+     * @return - график
+     */
+    public static JFreeChart createFullChart(TemperatureData data) {
+        int[] indexes = new int[data.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
         }
 
+        Comparable<?>[] keys = new Comparable<?>[indexes.length];
+        double[][] xs = new double[indexes.length][];
+        double[][] ys = new double[indexes.length][];
+        fillSeries(data, indexes, keys, xs, ys);
+        DownsampledProfileDataset dataset = new DownsampledProfileDataset(keys, xs, ys);
         JFreeChart chart = ChartFactory.createXYLineChart(
                 "Полный график температуры",
                 "Дата",
                 "Температура",
                 dataset
         );
-        return new ChartPanel(chart);
+
+        XYPlot plot = chart.getXYPlot();
+        XYItemRenderer renderer = plot.getRenderer();
+        if (renderer instanceof XYLineAndShapeRenderer lineRenderer) {
+            lineRenderer.setDrawSeriesLineAsPath(true);
+        }
+        if (dataset.hasEnvelope()) {
+            // Огибающая по всем профилям поверх выборки профилей
+            BasicStroke envelopeStroke = new BasicStroke(2.0f);
+            LegendItemCollection legend = new LegendItemCollection();
+            for (int series = 0; series < 2; series++) {
+                renderer.setSeriesPaint(series, Color.BLACK);
+                renderer.setSeriesStroke(series, envelopeStroke);
+                legend.add(new LegendItem(dataset.getSeriesKey(series).toString(), Color.BLACK));
+            }
+            plot.setFixedLegendItems(legend);
+        }
+
+        ValueAxis domainAxis = plot.getDomainAxis();
+        domainAxis.addChangeListener(_ -> dataset.setVisibleDomain(domainAxis.getLowerBound(), domainAxis.getUpperBound()));
+        return chart;
     }
 
-    private static void addTemperatureDataToDataset(XYSeriesCollection dataset, LocalDate date, Map<Double, Double> temperatureData) {
-        if (date.getMonth().equals(Month.DECEMBER)) {
-            date = date.minusYears(1);
+    /**
+     * Построение графика-коридора по статистике: среднее с коридором минимум - максимум
+     * и медиана с коридором 10% - 90% по глубинам.
+     * @param statistics - статистика
+     * @return - график
+     */
+    public static JFreeChart createStatisticsChart(ProfileStatistics statistics) {
+        JFreeChart chart = ChartFactory.createXYLineChart(
+                "Статистика температуры: " + statistics.title() + " (профилей: " + statistics.profileCount() + ")",
+                "Глубина",
+                "Температура",
+                new ProfileBandDataset(statistics)
+        );
+
+        DeviationRenderer renderer = new DeviationRenderer(true, false);
+        renderer.setSeriesPaint(0, new Color(200, 60, 40));
+        renderer.setSeriesFillPaint(0, new Color(240, 170, 160));
+        renderer.setSeriesPaint(1, new Color(40, 80, 200));
+        renderer.setSeriesFillPaint(1, new Color(150, 170, 240));
+        renderer.setAlpha(0.35f);
+        chart.getXYPlot().setRenderer(renderer);
+        return chart;
+    }
+
+    /**
+     * Построение графика сравнения скважин с наложением: профили всех скважин на одном графике,
+     * профили одной скважины одного цвета, в легенде - по строке на скважину.
+     * @param series - серии скважин на общей сетке
+     * @param grid - общая сетка глубин
+     * @param title - описание периода
+     * @param temperatureRange - общий диапазон температур (может быть null)
+     * @return - график
+     */
+    public static JFreeChart createComparisonChart(List<WellComparison.WellSeries> series, double[] grid, String title,
+                                                   Range temperatureRange) {
+        int seriesCount = series.stream().mapToInt(well -> well.dates().length).sum();
+        Comparable<?>[] keys = new Comparable<?>[seriesCount];
+        double[][] xs = new double[seriesCount][];
+        double[][] ys = new double[seriesCount][];
+        Paint[] paints = new Paint[seriesCount];
+        LegendItemCollection legend = new LegendItemCollection();
+
+        int s = 0;
+        for (int w = 0; w < series.size(); w++) {
+            WellComparison.WellSeries well = series.get(w);
+            Paint paint = COMPARISON_PAINTS[w % COMPARISON_PAINTS.length];
+            legend.add(new LegendItem("Скважина №" + well.pointNumber(), paint));
+            for (int i = 0; i < well.dates().length; i++) {
+                keys[s] = "№" + well.pointNumber() + " " + well.dates()[i];
+                xs[s] = grid;
+                ys[s] = well.temperatures()[i];
+                paints[s] = paint;
+                s++;
+            }
         }
+        checkCancelled();
 
-        XYSeries series = new XYSeries(date);
+        JFreeChart chart = ChartFactory.createXYLineChart(
+                "Сравнение скважин: " + title,
+                "Глубина",
+                "Температура",
+                new ProfileXYDataset(keys, xs, ys)
+        );
 
-        for (Map.Entry<Double, Double> entry : temperatureData.entrySet()) {
-            double depth = entry.getKey();
-            double temperature = entry.getValue();
-            series.add(depth, temperature);
+        XYPlot plot = chart.getXYPlot();
+        XYLineAndShapeRenderer renderer = (XYLineAndShapeRenderer) plot.getRenderer();
+        renderer.setDrawSeriesLineAsPath(true);
+        for (int i = 0; i < paints.length; i++) {
+            renderer.setSeriesPaint(i, paints[i], false);
         }
+        plot.setFixedLegendItems(legend);
+        setComparisonRanges(plot, grid, temperatureRange);
+        return chart;
+    }
 
-        dataset.addSeries(series);
+    /**
+     * Построение графика одной скважины для сравнения плитками. У всех плиток одинаковые диапазоны осей.
+     * @param well - серии скважины на общей сетке
+     * @param grid - общая сетка глубин
+     * @param temperatureRange - общий диапазон температур (может быть null)
+     * @return - график
+     */
+    public static JFreeChart createComparisonTile(WellComparison.WellSeries well, double[] grid, Range temperatureRange) {
+        Comparable<?>[] keys = new Comparable<?>[well.dates().length];
+        double[][] xs = new double[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = well.dates()[i];
+            xs[i] = grid;
+        }
+
+        JFreeChart chart = ChartFactory.createXYLineChart(
+                "Скважина №" + well.pointNumber(),
+                "Глубина",
+                "Температура",
+                new ProfileXYDataset(keys, xs, well.temperatures()),
+                PlotOrientation.VERTICAL,
+                false,
+                true,
+                false
+        );
+        setComparisonRanges(chart.getXYPlot(), grid, temperatureRange);
+        return chart;
+    }
+
+    private static void setComparisonRanges(XYPlot plot, double[] grid, Range temperatureRange) {
+        if (grid.length > 1) {
+            plot.getDomainAxis().setRange(grid[0], grid[grid.length - 1]);
+        }
+        if (temperatureRange != null) {
+            plot.getRangeAxis().setRange(temperatureRange.getLength() > 0
+                    ? Range.expand(temperatureRange, 0.05, 0.05)
+                    : Range.shift(new Range(-1, 1), temperatureRange.getCentralValue()));
+        }
+    }
+
+    /**
+     * Построение графика глубины фронта промерзания (изотермы 0 °C) по датам, глубина откладывается вниз.
+     * Профили без перехода через 0 °C дают разрыв линии, поэтому точки профилей тоже отмечаются.
+     * @param data - данные
+     * @param series - ряд фронта промерзания этих данных
+     * @return - график
+     */
+    public static JFreeChart createFreezeFrontChart(TemperatureData data, FreezeFrontSeries series) {
+        double[] frontDepths = series.getFrontDepths();
+        checkCancelled();
+
+        double[] times = new double[frontDepths.length];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = data.getDate(i).toEpochDay() * MILLIS_PER_DAY;
+        }
+        ProfileXYDataset dataset = new ProfileXYDataset(new Comparable<?>[]{"Изотерма 0 °C"}, new double[][]{times}, new double[][]{frontDepths});
+
+        DateAxis timeAxis = new DateAxis("Дата");
+        NumberAxis depthAxis = new NumberAxis("Глубина");
+        depthAxis.setInverted(true);
+        depthAxis.setAutoRangeIncludesZero(false);
+
+        XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(true, true);
+        renderer.setSeriesPaint(0, new Color(40, 80, 200));
+        renderer.setSeriesShape(0, new Rectangle(-2, -2, 4, 4));
+        XYPlot plot = new XYPlot(dataset, timeAxis, depthAxis, renderer);
+        return new JFreeChart("Глубина фронта промерзания", JFreeChart.DEFAULT_TITLE_FONT, plot, true);
+    }
+
+    /**
+     * Построение тепловой карты: время по X, глубина по Y (вниз), температура цветом, изотерма 0 °C черным.
+     * Карта рисуется как фоновое изображение области графика; при изменении масштаба видимая часть
+     * перерисовывается в фоне ({@link HeatmapUpdater}).
+     * @param data - данные
+     * @return - график
+     */
+    public static JFreeChart createHeatmapChart(TemperatureData data) {
+        HeatmapRaster.Bounds bounds = HeatmapRaster.bounds(data);
+        checkCancelled();
+
+        DateAxis timeAxis = new DateAxis("Дата");
+        timeAxis.setLowerMargin(0);
+        timeAxis.setUpperMargin(0);
+        NumberAxis depthAxis = new NumberAxis("Глубина");
+        depthAxis.setInverted(true);
+        depthAxis.setAutoRangeIncludesZero(false);
+        depthAxis.setLowerMargin(0);
+        depthAxis.setUpperMargin(0);
+
+        XYLineAndShapeRenderer boundsRenderer = new XYLineAndShapeRenderer(false, false);
+        boundsRenderer.setDataBoundsIncludesVisibleSeriesOnly(false);
+        XYPlot plot = new XYPlot(null, timeAxis, depthAxis, boundsRenderer);
+        JFreeChart chart = new JFreeChart("Тепловая карта температуры", JFreeChart.DEFAULT_TITLE_FONT, plot, false);
+        if (bounds == null) {
+            return chart;
+        }
+
+        // Невидимые углы карты задают автоматический масштаб осей
+        DefaultXYDataset corners = new DefaultXYDataset();
+        corners.addSeries("bounds", new double[][]{
+                {bounds.startDay() * MILLIS_PER_DAY, bounds.endDay() * MILLIS_PER_DAY},
+                {bounds.minDepth(), bounds.maxDepth()}
+        });
+        plot.setDataset(corners);
+
+        plot.setBackgroundImageAlignment(Align.FIT);
+        plot.setBackgroundImageAlpha(1.0f);
+        plot.setBackgroundImage(renderHeatmap(data, bounds, timeAxis, depthAxis));
+
+        HeatmapUpdater updater = new HeatmapUpdater(data, bounds, plot, timeAxis, depthAxis);
+        timeAxis.addChangeListener(updater);
+        depthAxis.addChangeListener(updater);
+
+        NumberAxis scaleAxis = new NumberAxis("Температура");
+        PaintScaleLegend legend = new PaintScaleLegend(HeatmapRaster.paintScale(bounds.temperatureLimit()), scaleAxis);
+        legend.setPosition(RectangleEdge.RIGHT);
+        legend.setMargin(4, 4, 4, 4);
+        chart.addSubtitle(legend);
+        return chart;
+    }
+
+    private static BufferedImage renderHeatmap(TemperatureData data, HeatmapRaster.Bounds bounds, ValueAxis timeAxis, ValueAxis depthAxis) {
+        return renderHeatmap(data, bounds, timeAxis.getRange(), depthAxis.getRange());
+    }
+
+    private static BufferedImage renderHeatmap(TemperatureData data, HeatmapRaster.Bounds bounds, Range timeRange, Range depthRange) {
+        return HeatmapRaster.render(data, HEATMAP_WIDTH, HEATMAP_HEIGHT,
+                timeRange.getLowerBound() / MILLIS_PER_DAY, timeRange.getUpperBound() / MILLIS_PER_DAY,
+                depthRange.getLowerBound(), depthRange.getUpperBound(), bounds.temperatureLimit());
+    }
+
+    /**
+     * Перерисовка тепловой карты при изменении масштаба (события осей приходят в потоке EDT).
+     * Изменения обеих осей от одного масштабирования объединяются в одну перерисовку,
+     * картинка считается в фоновом потоке и подставляется в график в потоке EDT.
+     * Пока картинка считается, новые изменения осей дают только одну следующую перерисовку по последнему масштабу.
+     */
+    private static class HeatmapUpdater implements AxisChangeListener {
+        private final TemperatureData data;
+        private final HeatmapRaster.Bounds bounds;
+        private final XYPlot plot;
+        private final ValueAxis timeAxis;
+        private final ValueAxis depthAxis;
+
+        private boolean scheduled;
+        private boolean rendering;
+
+        HeatmapUpdater(TemperatureData data, HeatmapRaster.Bounds bounds, XYPlot plot, ValueAxis timeAxis, ValueAxis depthAxis) {
+            this.data = data;
+            this.bounds = bounds;
+            this.plot = plot;
+            this.timeAxis = timeAxis;
+            this.depthAxis = depthAxis;
+        }
+
+        @Override
+        public void axisChanged(AxisChangeEvent event) {
+            if (!scheduled) {
+                scheduled = true;
+                SwingUtilities.invokeLater(this::render);
+            }
+        }
+
+        private void render() {
+            if (rendering) {
+                // Перерисовка запустится по окончании текущей
+                return;
+            }
+            scheduled = false;
+            rendering = true;
+
+            Range timeRange = timeAxis.getRange();
+            Range depthRange = depthAxis.getRange();
+            new SwingWorker<BufferedImage, Void>() {
+                @Override
+                protected BufferedImage doInBackground() {
+                    return renderHeatmap(data, bounds, timeRange, depthRange);
+                }
+
+                @Override
+                protected void done() {
+                    rendering = false;
+                    try {
+                        plot.setBackgroundImage(get());
+                    } catch (InterruptedException | ExecutionException ignored) {
+                        // Остается прежняя картинка
+                    }
+                    if (scheduled) {
+                        render();
+                    }
+                }
+            }.execute();
+        }
+    }
+
+    /**
+     * Набор данных из профилей скважины без копирования точек.
+     * @param data - данные
+     * @param indexes - номера профилей
+     * @return - набор данных, серия на каждый профиль
+     */
+    private static ProfileXYDataset createDataset(TemperatureData data, int[] indexes) {
+        Comparable<?>[] keys = new Comparable<?>[indexes.length];
+        double[][] xs = new double[indexes.length][];
+        double[][] ys = new double[indexes.length][];
+        fillSeries(data, indexes, keys, xs, ys);
+        return new ProfileXYDataset(keys, xs, ys);
+    }
+
+    private static void fillSeries(TemperatureData data, int[] indexes, Comparable<?>[] keys, double[][] xs, double[][] ys) {
+        for (int i = 0; i < indexes.length; i++) {
+            checkCancelled();
+            keys[i] = seriesKey(data, indexes[i]);
+            xs[i] = data.getDepths(indexes[i]);
+            ys[i] = data.getTemperatures(indexes[i]);
+        }
+    }
+
+    /**
+     * Подпись профиля на графике: дата, декабрь относится к предыдущему году.
+     */
+    private static LocalDate seriesKey(TemperatureData data, int index) {
+        LocalDate date = data.getDate(index);
+        if (date.getMonth().equals(Month.DECEMBER)) {
+            date = date.minusYears(1);
+        }
+        return date;
+    }
+
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Построение графика отменено");
+        }
     }
 }
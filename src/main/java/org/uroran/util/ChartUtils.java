@@ -5,7 +5,9 @@ import org.uroran.models.TemperatureData;
 
 import java.time.LocalDate;
 import java.time.Month;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Класс, содержащий полезные методы для работы с графиком температур.
@@ -21,10 +23,7 @@ public final class ChartUtils {
      * @return список месяцев.
      */
     public static Month[] getAvailableMonthsForYear(TemperatureData data, int year) {
-        return data.getData().keySet().stream()
-                .filter(date -> date.getYear() == year)
-                .map(LocalDate::getMonth)
-                .toArray(Month[]::new);
+        return data.getMonths(year);
     }
 
     /**
@@ -34,12 +33,17 @@ public final class ChartUtils {
      * @return список сезонов.
      */
     public static Season[] getAvailableSeasonsForYear(TemperatureData data, int year) {
-        return data.getData().keySet().stream()
-                .filter(e -> (!e.getMonth().equals(Month.NOVEMBER) && e.getDayOfMonth() != 27) && e.getYear() == year)
-                .collect(Collectors.groupingBy(
-                        date -> Season.getSeason(date.getMonth())
-                ))
-                .keySet().toArray(Season[]::new);
+        Set<Season> seasons = EnumSet.noneOf(Season.class);
+        for (Season season : Season.values()) {
+            for (int index : data.getProfileIndexes(year, season)) {
+                LocalDate e = data.getDate(index);
+                if (!e.getMonth().equals(Month.NOVEMBER) && e.getDayOfMonth() != 27) {
+                    seasons.add(season);
+                    break;
+                }
+            }
+        }
+        return seasons.toArray(Season[]::new);
     }
 
     /**
@@ -48,9 +52,6 @@ public final class ChartUtils {
      * @return - список годов
      */
     public static Integer[] getAvailableYears(TemperatureData data) {
-        return data.getData().keySet().stream()
-                .map(LocalDate::getYear)
-                .distinct()
-                .toArray(Integer[]::new);
+        return Arrays.stream(data.getYears()).boxed().toArray(Integer[]::new);
     }
 }
@@ -0,0 +1,170 @@
+package org.uroran.util;
+
+import org.uroran.models.TemperatureData;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Приведение профилей к общей равномерной сетке глубин.
+ * Сетка строится по всем профилям (от наименьшей до наибольшей глубины с самым мелким средним шагом среди сеток),
+ * температура на узлах сетки находится линейной интерполяцией между соседними глубинами профиля.
+ * Вне диапазона глубин профиля значение - NaN, экстраполяции нет.
+ * Если все профили уже на одной равномерной сетке, она же и получается, так что данные не меняются.
+ * Сетки глубин профилей должны идти по возрастанию, как в файлах расчета.
+ */
+public final class DepthGridResampler {
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private DepthGridResampler() {
+    }
+
+    /**
+     * Общая равномерная сетка для нескольких скважин.
+     * @param data - данные скважин
+     * @return - сетка или пустой массив, если глубин нет
+     */
+    public static double[] uniformGrid(TemperatureData... data) {
+        double minDepth = Double.POSITIVE_INFINITY;
+        double maxDepth = Double.NEGATIVE_INFINITY;
+        double step = Double.POSITIVE_INFINITY;
+        double[] singleGrid = null;
+        boolean single = true;
+
+        for (TemperatureData well : data) {
+            double[] previous = null;
+            for (int i = 0; i < well.size(); i++) {
+                double[] depths = well.getDepths(i);
+                // Одинаковые сетки хранятся одним массивом, повторно их не смотрим
+                if (depths == previous || depths.length == 0) {
+                    continue;
+                }
+                previous = depths;
+                if (singleGrid == null) {
+                    singleGrid = depths;
+                } else if (single && singleGrid != depths && !Arrays.equals(singleGrid, depths)) {
+                    single = false;
+                }
+                minDepth = Math.min(minDepth, depths[0]);
+                maxDepth = Math.max(maxDepth, depths[depths.length - 1]);
+                if (depths.length > 1) {
+                    step = Math.min(step, (depths[depths.length - 1] - depths[0]) / (depths.length - 1));
+                }
+            }
+        }
+
+        if (minDepth > maxDepth) {
+            return new double[0];
+        }
+        if (minDepth == maxDepth || step <= 0 || Double.isInfinite(step)) {
+            return new double[]{minDepth};
+        }
+
+        if (single && isUniform(singleGrid)) {
+            // Исходная сетка уже равномерная: берем ее как есть, чтобы узлы совпадали с глубинами файла до последнего бита
+            return singleGrid;
+        }
+
+        int count = (int) Math.round((maxDepth - minDepth) / step) + 1;
+        double[] grid = new double[count];
+        for (int j = 0; j < count; j++) {
+            grid[j] = minDepth + j * (maxDepth - minDepth) / (count - 1);
+        }
+        return grid;
+    }
+
+    private static boolean isUniform(double[] grid) {
+        double step = (grid[grid.length - 1] - grid[0]) / (grid.length - 1);
+        for (int j = 1; j < grid.length; j++) {
+            if (Math.abs(grid[j] - grid[j - 1] - step) > step * 1e-6) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Общая сетка глубин скважины: сетка профилей, если она у всех одна, иначе равномерная сетка по всем профилям.
+     * @param data - данные
+     * @return - сетка
+     */
+    public static double[] commonGrid(TemperatureData data) {
+        double[] sharedGrid = data.getDepthGrid();
+        return sharedGrid != null ? sharedGrid : uniformGrid(data);
+    }
+
+    /**
+     * Температуры одного профиля на сетке без копирования данных всей скважины.
+     * @param data - данные
+     * @param index - номер профиля
+     * @param grid - сетка глубин
+     * @return - температуры (исходный массив, если профиль уже на этой сетке)
+     */
+    public static double[] onGrid(TemperatureData data, int index, double[] grid) {
+        double[] depths = data.getDepths(index);
+        return depths == grid ? data.getTemperatures(index) : resample(depths, data.getTemperatures(index), grid);
+    }
+
+    /**
+     * Приведение данных скважины к общей сетке.
+     * @param data - данные
+     * @param grid - сетка глубин по возрастанию
+     * @return - данные на сетке (те же данные, если все профили уже на ней)
+     */
+    public static TemperatureData resample(TemperatureData data, double[] grid) {
+        double[] sharedGrid = data.getDepthGrid();
+        if (sharedGrid != null && Arrays.equals(sharedGrid, grid)) {
+            return data;
+        }
+
+        double[][] temperatures = new double[data.size()][];
+        IntStream indexes = IntStream.range(0, data.size());
+        if (data.size() > PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> temperatures[i] = resample(data.getDepths(i), data.getTemperatures(i), grid));
+
+        TemperatureData resampled = new TemperatureData(data.getPointNumber());
+        for (int i = 0; i < temperatures.length; i++) {
+            resampled.addProfile(data.getDate(i), grid, temperatures[i]);
+        }
+        return resampled;
+    }
+
+    /**
+     * Приведение данных скважины к ее собственной равномерной сетке.
+     * @param data - данные
+     * @return - данные на сетке
+     */
+    public static TemperatureData resample(TemperatureData data) {
+        return resample(data, uniformGrid(data));
+    }
+
+    /**
+     * Интерполяция одного профиля на сетку за один проход по обоим массивам.
+     * @param depths - глубины профиля по возрастанию
+     * @param temperatures - температуры профиля
+     * @param grid - сетка глубин по возрастанию
+     * @return - температуры на узлах сетки
+     */
+    public static double[] resample(double[] depths, double[] temperatures, double[] grid) {
+        double[] result = new double[grid.length];
+        int k = 0;
+        for (int j = 0; j < grid.length; j++) {
+            double depth = grid[j];
+            while (k + 1 < depths.length && depths[k + 1] < depth) {
+                k++;
+            }
+
+            if (depths.length == 0 || depth < depths[0] || depth > depths[depths.length - 1]) {
+                result[j] = Double.NaN;
+            } else if (depths[k] == depth || k + 1 == depths.length) {
+                result[j] = temperatures[k];
+            } else {
+                double weight = (depth - depths[k]) / (depths[k + 1] - depths[k]);
+                result[j] = temperatures[k] + weight * (temperatures[k + 1] - temperatures[k]);
+            }
+        }
+        return result;
+    }
+}
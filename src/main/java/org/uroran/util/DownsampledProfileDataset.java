@@ -0,0 +1,412 @@
+package org.uroran.util;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.Range;
+
+import java.util.Arrays;
+
+/**
+ * Набор данных для графика со множеством профилей, который отдает на отрисовку не все точки, а только видимые.
+ * Видимый диапазон по оси X делится на столбцы по одному пикселю, и в каждом столбце от каждого профиля остаются
+ * первая, последняя, минимальная и максимальная точки. Линия с такими точками на экране выглядит так же,
+ * как с полными данными (экстремумы не теряются), но точек не больше четырех на пиксель.
+ * Если профилей больше {@link #MAX_DRAWN_PROFILES}, первые две серии - огибающая: минимум и максимум
+ * по всем профилям в каждом столбце. Пока видимые точки всех профилей не помещаются в бюджет
+ * ({@link #MAX_DRAWN_PROFILES} профилей по ширине графика), рисуется огибающая и равномерная выборка профилей,
+ * так что количество точек на графике ограничено шириной, а не количеством профилей.
+ * Когда при увеличении масштаба точки всех профилей помещаются в бюджет, рисуются все профили, а огибающая пустая.
+ * При изменении видимого диапазона (масштаб, сдвиг) или ширины графика профили и точки выбираются заново.
+ * Границы по оси X всегда считаются по полным данным, чтобы автоматический масштаб не зависел от прореживания.
+ */
+public class DownsampledProfileDataset extends ProfileXYDataset implements DomainInfo {
+    /**
+     * Сколько профилей рисуется без огибающей; при большем количестве при общем масштабе рисуется огибающая
+     * и выборка профилей. Вместе с шириной графика задает бюджет точек.
+     */
+    public static final int MAX_DRAWN_PROFILES = 64;
+    public static final String ENVELOPE_MIN_KEY = "Минимум";
+    public static final String ENVELOPE_MAX_KEY = "Максимум";
+
+    private static final int POINTS_PER_COLUMN = 4;
+    private static final int DEFAULT_WIDTH = 1000;
+    private static final int ENVELOPE_SERIES = 2;
+
+    private final Range domainBounds;
+
+    private final int[][] selected;
+    private final int[] selectedCount;
+
+    private final boolean envelope;
+    private final int[] sampledProfiles;
+    private final int[] allProfiles;
+    private int[] drawnProfiles;
+    private double[][] envelopeX = new double[ENVELOPE_SERIES][0];
+    private double[][] envelopeY = new double[ENVELOPE_SERIES][0];
+    private int envelopeCount;
+
+    private double lower = Double.NEGATIVE_INFINITY;
+    private double upper = Double.POSITIVE_INFINITY;
+    private int width = DEFAULT_WIDTH;
+
+    /**
+     * @param keys - ключи (подписи) серий
+     * @param xs - значения X каждой серии (массивы не копируются и не должны меняться)
+     * @param ys - значения Y каждой серии той же длины
+     */
+    public DownsampledProfileDataset(Comparable<?>[] keys, double[][] xs, double[][] ys) {
+        super(keys, xs, ys);
+        this.selected = new int[keys.length][];
+        this.selectedCount = new int[keys.length];
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int series = 0; series < keys.length; series++) {
+            double[] x = xValues(series);
+            if (x.length > 0) {
+                min = Math.min(min, x[0]);
+                max = Math.max(max, x[x.length - 1]);
+            }
+        }
+        this.domainBounds = min <= max ? new Range(min, max) : null;
+
+        this.envelope = keys.length > MAX_DRAWN_PROFILES;
+        this.allProfiles = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            allProfiles[i] = i;
+        }
+        int drawn = Math.min(keys.length, MAX_DRAWN_PROFILES);
+        this.sampledProfiles = new int[drawn];
+        for (int i = 0; i < drawn; i++) {
+            // Равномерно по всем профилям, включая первый и последний
+            sampledProfiles[i] = drawn > 1 ? (int) ((long) i * (keys.length - 1) / (drawn - 1)) : 0;
+        }
+        this.drawnProfiles = sampledProfiles;
+
+        resample();
+    }
+
+    /**
+     * Есть ли серии огибающей: тогда серии 0 и 1 - минимум и максимум по всем профилям, дальше рисуемые профили.
+     * Когда рисуются все профили ({@link #isAllProfilesDrawn()}), серии огибающей пустые.
+     */
+    public boolean hasEnvelope() {
+        return envelope;
+    }
+
+    /**
+     * Рисуются ли сейчас все профили, а не выборка.
+     */
+    public boolean isAllProfilesDrawn() {
+        return drawnProfiles.length == allProfiles.length;
+    }
+
+    /**
+     * Установка видимого диапазона по оси X.
+     * @param lower - нижняя граница
+     * @param upper - верхняя граница
+     */
+    public void setVisibleDomain(double lower, double upper) {
+        if (lower != this.lower || upper != this.upper) {
+            this.lower = lower;
+            this.upper = upper;
+            resampleAndNotify();
+        }
+    }
+
+    /**
+     * Установка ширины графика.
+     * @param pixels - ширина в пикселях
+     */
+    public void setTargetWidth(int pixels) {
+        int newWidth = Math.max(1, pixels);
+        if (newWidth != width) {
+            width = newWidth;
+            resampleAndNotify();
+        }
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return envelope ? ENVELOPE_SERIES + drawnProfiles.length : drawnProfiles.length;
+    }
+
+    @Override
+    public Comparable<?> getSeriesKey(int series) {
+        if (envelope && series < ENVELOPE_SERIES) {
+            return series == 0 ? ENVELOPE_MIN_KEY : ENVELOPE_MAX_KEY;
+        }
+        return super.getSeriesKey(profile(series));
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        if (envelope && series < ENVELOPE_SERIES) {
+            return envelopeCount;
+        }
+        return selectedCount[profile(series)];
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        if (envelope && series < ENVELOPE_SERIES) {
+            return envelopeX[series][item];
+        }
+        int profile = profile(series);
+        return xValues(profile)[selected[profile][item]];
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        if (envelope && series < ENVELOPE_SERIES) {
+            return envelopeY[series][item];
+        }
+        int profile = profile(series);
+        return yValues(profile)[selected[profile][item]];
+    }
+
+    /**
+     * Номер профиля по номеру серии на графике.
+     */
+    private int profile(int series) {
+        return drawnProfiles[envelope ? series - ENVELOPE_SERIES : series];
+    }
+
+    @Override
+    public double getDomainLowerBound(boolean includeInterval) {
+        return domainBounds != null ? domainBounds.getLowerBound() : Double.NaN;
+    }
+
+    @Override
+    public double getDomainUpperBound(boolean includeInterval) {
+        return domainBounds != null ? domainBounds.getUpperBound() : Double.NaN;
+    }
+
+    @Override
+    public Range getDomainBounds(boolean includeInterval) {
+        return domainBounds;
+    }
+
+    private void resampleAndNotify() {
+        resample();
+        fireDatasetChanged();
+    }
+
+    private void resample() {
+        if (envelope) {
+            drawnProfiles = visiblePoints() <= (long) MAX_DRAWN_PROFILES * columnPoints() ? allProfiles : sampledProfiles;
+        }
+        for (int profile : drawnProfiles) {
+            resampleSeries(profile);
+        }
+        if (!envelope) {
+            return;
+        }
+        if (isAllProfilesDrawn()) {
+            envelopeCount = 0;
+        } else {
+            resampleEnvelope();
+        }
+    }
+
+    /**
+     * Сколько точек одной серии попадает на график при текущей ширине: видимые точки, но не больше прореженных.
+     */
+    private int columnPoints() {
+        return width * POINTS_PER_COLUMN + 2;
+    }
+
+    /**
+     * Сколько точек всех профилей попало бы на график, если рисовать их все.
+     */
+    private long visiblePoints() {
+        long total = 0;
+        for (int series = 0; series < selected.length; series++) {
+            double[] x = xValues(series);
+            if (x.length == 0) {
+                continue;
+            }
+            int from = Math.max(0, lowerIndex(x, lower) - 1);
+            int to = Math.min(x.length - 1, upperIndex(x, upper) + 1);
+            total += Math.max(0, Math.min(to - from + 1, columnPoints()));
+        }
+        return total;
+    }
+
+    /**
+     * Огибающая по всем профилям: в каждом столбце видимого диапазона минимум и максимум значений всех профилей.
+     * Точки берутся с их настоящим X, по одной невидимой точке с каждой стороны попадает в крайние столбцы,
+     * чтобы линия доходила до края.
+     */
+    private void resampleEnvelope() {
+        envelopeCount = 0;
+        if (domainBounds == null) {
+            return;
+        }
+        double start = Math.max(lower, domainBounds.getLowerBound());
+        double end = Math.min(upper, domainBounds.getUpperBound());
+        if (end < start) {
+            return;
+        }
+        double columnWidth = (end - start) / width;
+
+        double[] minY = new double[width];
+        double[] maxY = new double[width];
+        double[] minX = new double[width];
+        double[] maxX = new double[width];
+        Arrays.fill(minY, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxY, Double.NEGATIVE_INFINITY);
+
+        for (int series = 0; series < selected.length; series++) {
+            double[] x = xValues(series);
+            double[] y = yValues(series);
+            if (x.length == 0) {
+                continue;
+            }
+            int from = Math.max(0, lowerIndex(x, lower) - 1);
+            int to = Math.min(x.length - 1, upperIndex(x, upper) + 1);
+            for (int i = from; i <= to; i++) {
+                double value = y[i];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                int column = columnWidth > 0 ? (int) Math.max(0, Math.min(width - 1, (x[i] - start) / columnWidth)) : 0;
+                if (value < minY[column]) {
+                    minY[column] = value;
+                    minX[column] = x[i];
+                }
+                if (value > maxY[column]) {
+                    maxY[column] = value;
+                    maxX[column] = x[i];
+                }
+            }
+        }
+
+        if (envelopeX[0].length < width) {
+            envelopeX = new double[ENVELOPE_SERIES][width];
+            envelopeY = new double[ENVELOPE_SERIES][width];
+        }
+        for (int column = 0; column < width; column++) {
+            if (minY[column] <= maxY[column]) {
+                envelopeX[0][envelopeCount] = minX[column];
+                envelopeY[0][envelopeCount] = minY[column];
+                envelopeX[1][envelopeCount] = maxX[column];
+                envelopeY[1][envelopeCount] = maxY[column];
+                envelopeCount++;
+            }
+        }
+    }
+
+    /**
+     * Выбор точек одной серии: все видимые точки плюс по одной с каждой стороны, чтобы линия доходила до края,
+     * и прореживание по столбцам, если точек больше, чем помещается на ширине графика.
+     */
+    private void resampleSeries(int series) {
+        double[] x = xValues(series);
+        double[] y = yValues(series);
+        if (x.length == 0) {
+            selected[series] = new int[0];
+            selectedCount[series] = 0;
+            return;
+        }
+
+        int from = Math.max(0, lowerIndex(x, lower) - 1);
+        int to = Math.min(x.length - 1, upperIndex(x, upper) + 1);
+        if (to < from) {
+            selectedCount[series] = 0;
+            return;
+        }
+
+        int visible = to - from + 1;
+        int capacity = Math.min(visible, columnPoints());
+        int[] indexes = selected[series];
+        if (indexes == null || indexes.length < capacity) {
+            indexes = new int[capacity];
+            selected[series] = indexes;
+        }
+
+        if (visible <= width * POINTS_PER_COLUMN) {
+            for (int i = 0; i < visible; i++) {
+                indexes[i] = from + i;
+            }
+            selectedCount[series] = visible;
+            return;
+        }
+
+        double start = x[from];
+        double columnWidth = (x[to] - start) / width;
+        int count = 0;
+
+        int column = -1;
+        int first = -1;
+        int last = -1;
+        int min = -1;
+        int max = -1;
+        for (int i = from; i <= to; i++) {
+            int pointColumn = columnWidth > 0 ? Math.min(width - 1, (int) ((x[i] - start) / columnWidth)) : 0;
+            if (pointColumn != column) {
+                if (column >= 0) {
+                    count = emitColumn(indexes, count, first, min, max, last);
+                }
+                column = pointColumn;
+                first = min = max = i;
+            }
+            if (y[i] < y[min]) {
+                min = i;
+            }
+            if (y[i] > y[max]) {
+                max = i;
+            }
+            last = i;
+        }
+        count = emitColumn(indexes, count, first, min, max, last);
+
+        selectedCount[series] = count;
+    }
+
+    /**
+     * Запись точек столбца по возрастанию номера без повторов.
+     */
+    private static int emitColumn(int[] indexes, int count, int first, int min, int max, int last) {
+        int low = Math.min(min, max);
+        int high = Math.max(min, max);
+        count = emit(indexes, count, first);
+        count = emit(indexes, count, low);
+        count = emit(indexes, count, high);
+        return emit(indexes, count, last);
+    }
+
+    private static int emit(int[] indexes, int count, int index) {
+        if (count == 0 || indexes[count - 1] < index) {
+            indexes[count++] = index;
+        }
+        return count;
+    }
+
+    /**
+     * Номер первой точки не левее границы.
+     */
+    private static int lowerIndex(double[] x, double bound) {
+        int index = Arrays.binarySearch(x, bound);
+        if (index < 0) {
+            return -(index + 1);
+        }
+        while (index > 0 && x[index - 1] == bound) {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * Номер последней точки не правее границы.
+     */
+    private static int upperIndex(double[] x, double bound) {
+        int index = Arrays.binarySearch(x, bound);
+        if (index < 0) {
+            return -(index + 1) - 1;
+        }
+        while (index < x.length - 1 && x[index + 1] == bound) {
+            index++;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,87 @@
+package org.uroran.util;
+
+import org.uroran.models.TemperatureData;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Глубина фронта промерзания (изотермы 0 °C) по датам профилей скважины.
+ * Фронт - самая глубокая точка, где температура профиля переходит через 0 °C (граница мерзлой зоны снизу),
+ * глубина находится линейной интерполяцией между соседними узлами сетки. Если профиль не пересекает 0 °C, глубина - NaN.
+ * Ряд досчитывается только по новым профилям, дописанным в конец; если профили заменялись или вставлялись в середину,
+ * ряд пересчитывается целиком.
+ */
+public class FreezeFrontSeries {
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private final TemperatureData data;
+    private double[] frontDepths = new double[0];
+    private int computedSize;
+    private int rewriteCount;
+
+    public FreezeFrontSeries(TemperatureData data) {
+        this.data = data;
+        this.rewriteCount = data.getRewriteCount();
+    }
+
+    /**
+     * Глубины фронта для всех профилей с досчетом новых.
+     * @return - массив глубин по номерам профилей (копия)
+     */
+    public synchronized double[] getFrontDepths() {
+        update();
+        return Arrays.copyOf(frontDepths, computedSize);
+    }
+
+    /**
+     * Досчет ряда по профилям, появившимся с прошлого вызова.
+     * @return - количество посчитанных профилей
+     */
+    public synchronized int update() {
+        if (data.getRewriteCount() != rewriteCount || data.size() < computedSize) {
+            rewriteCount = data.getRewriteCount();
+            computedSize = 0;
+        }
+
+        int from = computedSize;
+        int to = data.size();
+        if (from == to) {
+            return 0;
+        }
+
+        if (frontDepths.length < to) {
+            frontDepths = Arrays.copyOf(frontDepths, Math.max(to, frontDepths.length * 2));
+        }
+        double[] result = frontDepths;
+        IntStream range = IntStream.range(from, to);
+        if (to - from > PARALLEL_THRESHOLD) {
+            range = range.parallel();
+        }
+        range.forEach(i -> result[i] = frontDepth(data.getDepths(i), data.getTemperatures(i)));
+
+        computedSize = to;
+        return to - from;
+    }
+
+    /**
+     * Глубина фронта промерзания одного профиля.
+     * Профиль проходится одним циклом, переход выбирается тернарным оператором вместо ветвления,
+     * так что JIT-компилятор может обойтись условными пересылками.
+     * Пары узлов, где хотя бы одно значение NaN (нет значения, например хвост вне сетки профиля), переходом не считаются.
+     * @param depths - глубины по возрастанию
+     * @param temperatures - температуры
+     * @return - глубина самого нижнего перехода через 0 °C или NaN
+     */
+    public static double frontDepth(double[] depths, double[] temperatures) {
+        double front = Double.NaN;
+        for (int j = 0; j + 1 < depths.length; j++) {
+            double upper = temperatures[j];
+            double lower = temperatures[j + 1];
+            double crossing = depths[j] + upper / (upper - lower) * (depths[j + 1] - depths[j]);
+            boolean crosses = (upper <= 0) != (lower <= 0) && !Double.isNaN(upper) && !Double.isNaN(lower);
+            front = crosses ? crossing : front;
+        }
+        return front;
+    }
+}
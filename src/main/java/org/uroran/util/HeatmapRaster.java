@@ -0,0 +1,282 @@
+package org.uroran.util;
+
+import org.jfree.chart.renderer.PaintScale;
+import org.uroran.models.TemperatureData;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Растровая тепловая карта температуры: время по горизонтали, глубина по вертикали (вниз), температура - цветом.
+ * Каждый столбец пикселей берет профиль, действующий на этот момент (последний профиль не позже него),
+ * по глубине температура интерполируется линейно между узлами сетки профиля. Изотерма 0 °C выделяется черным.
+ * Картинка считается параллельно горизонтальными полосами, по одной на ядро, сразу в массив пикселей изображения.
+ * Сетки глубин профилей должны идти по возрастанию, как в файлах расчета.
+ */
+public final class HeatmapRaster {
+    private static final int PALETTE_SIZE = 256;
+    private static final int NO_DATA_COLOR = 0xD0D0D0;
+    private static final int ISOTHERM_COLOR = 0x000000;
+
+    private HeatmapRaster() {
+    }
+
+    /**
+     * Границы данных, по которым строится карта по умолчанию.
+     * @param startDay - начало по времени (эпохальный день первого профиля)
+     * @param endDay - конец по времени (последний профиль плюс средний шаг между профилями)
+     * @param minDepth - наименьшая глубина
+     * @param maxDepth - наибольшая глубина
+     * @param temperatureLimit - наибольший модуль температуры, по нему строится симметричная шкала цвета
+     */
+    public record Bounds(double startDay, double endDay, double minDepth, double maxDepth, double temperatureLimit) {
+    }
+
+    /**
+     * Вычисление границ данных.
+     * @param data - данные
+     * @return - границы или null, если профилей нет
+     */
+    public static Bounds bounds(TemperatureData data) {
+        if (data.isEmpty()) {
+            return null;
+        }
+
+        double minDepth = Double.POSITIVE_INFINITY;
+        double maxDepth = Double.NEGATIVE_INFINITY;
+        double limit = 0;
+        for (int i = 0; i < data.size(); i++) {
+            double[] depths = data.getDepths(i);
+            if (depths.length > 0) {
+                minDepth = Math.min(minDepth, depths[0]);
+                maxDepth = Math.max(maxDepth, depths[depths.length - 1]);
+            }
+            for (double temperature : data.getTemperatures(i)) {
+                limit = Math.max(limit, Math.abs(temperature));
+            }
+        }
+        if (minDepth > maxDepth) {
+            return null;
+        }
+
+        double startDay = data.getDate(0).toEpochDay();
+        double lastDay = data.getDate(data.size() - 1).toEpochDay();
+        double step = data.size() > 1 ? (lastDay - startDay) / (data.size() - 1) : 1;
+        return new Bounds(startDay, lastDay + step, minDepth, maxDepth, limit > 0 ? limit : 1);
+    }
+
+    /**
+     * Построение карты.
+     * @param data - данные (все профили должны быть загружены, см. {@link #bounds})
+     * @param width - ширина в пикселях
+     * @param height - высота в пикселях
+     * @param startDay - левая граница по времени (эпохальный день)
+     * @param endDay - правая граница по времени
+     * @param minDepth - верхняя граница по глубине
+     * @param maxDepth - нижняя граница по глубине
+     * @param temperatureLimit - модуль температуры, которой соответствуют крайние цвета шкалы
+     * @return - изображение
+     */
+    public static BufferedImage render(TemperatureData data, int width, int height,
+                                       double startDay, double endDay, double minDepth, double maxDepth,
+                                       double temperatureLimit) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        int[] columnProfiles = columnProfiles(data, width, startDay, endDay);
+        RowMapping[] rowMappings = rowMappings(data, columnProfiles, height, minDepth, maxDepth);
+        double[][] temperatures = new double[data.size()][];
+        for (int profile : columnProfiles) {
+            if (profile >= 0 && temperatures[profile] == null) {
+                temperatures[profile] = data.getTemperatures(profile);
+            }
+        }
+        float[] values = new float[width * height];
+        int[] palette = palette();
+
+        int strips = Math.min(height, Runtime.getRuntime().availableProcessors());
+        IntStream.range(0, strips).parallel().forEach(strip ->
+                fillValues(temperatures, values, width, columnProfiles, rowMappings, stripStart(strip, strips, height), stripStart(strip + 1, strips, height)));
+        // Изотерме нужны соседние строки из других полос, поэтому цвет считается вторым проходом
+        IntStream.range(0, strips).parallel().forEach(strip ->
+                fillPixels(values, pixels, width, height, palette, temperatureLimit, stripStart(strip, strips, height), stripStart(strip + 1, strips, height)));
+
+        return image;
+    }
+
+    /**
+     * Шкала цвета карты для легенды графика.
+     * @param temperatureLimit - модуль температуры крайних цветов
+     * @return - шкала от -limit до +limit
+     */
+    public static PaintScale paintScale(double temperatureLimit) {
+        int[] palette = palette();
+        return new PaintScale() {
+            @Override
+            public double getLowerBound() {
+                return -temperatureLimit;
+            }
+
+            @Override
+            public double getUpperBound() {
+                return temperatureLimit;
+            }
+
+            @Override
+            public Paint getPaint(double value) {
+                return new Color(color(palette, value, temperatureLimit));
+            }
+        };
+    }
+
+    private static int stripStart(int strip, int strips, int height) {
+        return (int) ((long) strip * height / strips);
+    }
+
+    /**
+     * Номер профиля для каждого столбца: последний профиль, начавшийся не позже середины столбца, или -1.
+     */
+    private static int[] columnProfiles(TemperatureData data, int width, double startDay, double endDay) {
+        double[] days = new double[data.size()];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = data.getDate(i).toEpochDay();
+        }
+
+        int[] columnProfiles = new int[width];
+        double dayPerPixel = (endDay - startDay) / width;
+        for (int x = 0; x < width; x++) {
+            double day = startDay + (x + 0.5) * dayPerPixel;
+            int index = Arrays.binarySearch(days, day);
+            columnProfiles[x] = index >= 0 ? index : -(index + 1) - 1;
+        }
+        return columnProfiles;
+    }
+
+    /**
+     * Интерполяция строк по глубине для каждой используемой сетки глубин (одинаковые сетки считаются один раз).
+     * @return - отображение для каждого профиля (null для профилей, которые не попали на карту)
+     */
+    private static RowMapping[] rowMappings(TemperatureData data, int[] columnProfiles, int height, double minDepth, double maxDepth) {
+        RowMapping[] mappings = new RowMapping[data.size()];
+        Map<double[], RowMapping> byGrid = new IdentityHashMap<>();
+        double depthPerPixel = (maxDepth - minDepth) / height;
+
+        for (int profile : columnProfiles) {
+            if (profile < 0 || mappings[profile] != null) {
+                continue;
+            }
+            double[] grid = data.getDepths(profile);
+            mappings[profile] = byGrid.computeIfAbsent(grid, g -> {
+                RowMapping mapping = new RowMapping(new int[height], new float[height]);
+                for (int y = 0; y < height; y++) {
+                    double depth = minDepth + (y + 0.5) * depthPerPixel;
+                    int index = Arrays.binarySearch(g, depth);
+                    if (index >= 0) {
+                        mapping.lower()[y] = index;
+                        mapping.weight()[y] = 0;
+                    } else {
+                        int upper = -(index + 1);
+                        if (upper == 0 || upper == g.length) {
+                            mapping.lower()[y] = -1;
+                        } else {
+                            mapping.lower()[y] = upper - 1;
+                            mapping.weight()[y] = (float) ((depth - g[upper - 1]) / (g[upper] - g[upper - 1]));
+                        }
+                    }
+                }
+                return mapping;
+            });
+        }
+        return mappings;
+    }
+
+    private static void fillValues(double[][] temperatures, float[] values, int width, int[] columnProfiles,
+                                   RowMapping[] rowMappings, int fromRow, int toRow) {
+        for (int y = fromRow; y < toRow; y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int profile = columnProfiles[x];
+                float value = Float.NaN;
+                if (profile >= 0) {
+                    RowMapping mapping = rowMappings[profile];
+                    int lower = mapping.lower()[y];
+                    if (lower >= 0) {
+                        double[] profileTemperatures = temperatures[profile];
+                        float weight = mapping.weight()[y];
+                        value = weight == 0
+                                ? (float) profileTemperatures[lower]
+                                : (float) (profileTemperatures[lower] + weight * (profileTemperatures[lower + 1] - profileTemperatures[lower]));
+                    }
+                }
+                values[offset + x] = value;
+            }
+        }
+    }
+
+    private static void fillPixels(float[] values, int[] pixels, int width, int height, int[] palette,
+                                   double temperatureLimit, int fromRow, int toRow) {
+        for (int y = fromRow; y < toRow; y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                float value = values[offset + x];
+                int color;
+                if (Float.isNaN(value)) {
+                    color = NO_DATA_COLOR;
+                } else if ((x + 1 < width && crossesZero(value, values[offset + x + 1]))
+                        || (y + 1 < height && crossesZero(value, values[offset + width + x]))) {
+                    color = ISOTHERM_COLOR;
+                } else {
+                    color = color(palette, value, temperatureLimit);
+                }
+                pixels[offset + x] = color;
+            }
+        }
+    }
+
+    private static boolean crossesZero(float value, float neighbour) {
+        return !Float.isNaN(neighbour) && (value <= 0) != (neighbour <= 0);
+    }
+
+    private static int color(int[] palette, double value, double temperatureLimit) {
+        double position = (value / temperatureLimit + 1) / 2;
+        int index = (int) (position * (PALETTE_SIZE - 1));
+        return palette[Math.max(0, Math.min(PALETTE_SIZE - 1, index))];
+    }
+
+    /**
+     * Расходящаяся палитра: синий для мерзлых температур, белый около нуля, красный для положительных.
+     */
+    private static int[] palette() {
+        int[] palette = new int[PALETTE_SIZE];
+        int middle = PALETTE_SIZE / 2;
+        for (int i = 0; i < PALETTE_SIZE; i++) {
+            int r;
+            int g;
+            int b;
+            if (i < middle) {
+                double t = (double) i / middle;
+                r = (int) (30 + t * 225);
+                g = (int) (60 + t * 195);
+                b = (int) (160 + t * 95);
+            } else {
+                double t = (double) (i - middle) / (PALETTE_SIZE - 1 - middle);
+                r = (int) (255 - t * 75);
+                g = (int) (255 - t * 225);
+                b = (int) (255 - t * 225);
+            }
+            palette[i] = (r << 16) | (g << 8) | b;
+        }
+        return palette;
+    }
+
+    /**
+     * Интерполяция строк карты по сетке глубин: номер нижнего узла (-1 - вне сетки) и вес верхнего узла.
+     */
+    private record RowMapping(int[] lower, float[] weight) {
+    }
+}
@@ -0,0 +1,205 @@
+package org.uroran.util;
+
+import org.uroran.models.TemperatureData;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Файл с температурами, отображенный в память.
+ * Байты файла один раз просматриваются, чтобы найти границы блоков-профилей и их даты,
+ * затем блоки независимо друг от друга декодируются параллельно в общем fork-join пуле
+ * и добавляются в данные в порядке файла, так что результат тот же, что у потокового разбора.
+ */
+final class MappedPointFile {
+    private static final int PARALLEL_THRESHOLD = 32;
+
+    private final MappedByteBuffer buffer;
+
+    private MappedPointFile(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Разбор файла.
+     * @param pointNumber - номер скважины
+     * @param path - путь к файлу (не больше 2 ГБ)
+     * @return - данные скважины.
+     */
+    static TemperatureData parse(int pointNumber, Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        MappedPointFile file = new MappedPointFile(buffer);
+        List<Block> blocks = file.index();
+
+        TemperatureData.Profile[] profiles = new TemperatureData.Profile[blocks.size()];
+        IntStream indexes = IntStream.range(0, blocks.size());
+        if (blocks.size() > PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> profiles[i] = file.decode(blocks.get(i)));
+
+        TemperatureData data = new TemperatureData(pointNumber);
+        for (int i = 0; i < profiles.length; i++) {
+            if (profiles[i] != null) {
+                data.addProfile(blocks.get(i).date(), profiles[i].depths(), profiles[i].temperatures());
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Просмотр байтов файла: поиск блоков, отделенных пустыми строками, и дат в них.
+     * @return - блоки с датой в порядке файла
+     */
+    private List<Block> index() {
+        List<Block> blocks = new ArrayList<>();
+        int limit = buffer.limit();
+        int blockStart = -1;
+        LocalDate blockDate = null;
+
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineEnd(lineStart, limit);
+
+            if (isBlank(lineStart, lineEnd)) {
+                if (blockStart >= 0) {
+                    addBlock(blocks, blockStart, lineStart, blockDate);
+                    blockStart = -1;
+                    blockDate = null;
+                }
+            } else {
+                if (blockStart < 0) {
+                    blockStart = lineStart;
+                }
+                if (blockDate == null) {
+                    blockDate = findDate(lineStart, lineEnd);
+                }
+            }
+
+            lineStart = lineEnd + 1;
+        }
+
+        if (blockStart >= 0) {
+            addBlock(blocks, blockStart, limit, blockDate);
+        }
+        return blocks;
+    }
+
+    private static void addBlock(List<Block> blocks, int start, int end, LocalDate date) {
+        if (date != null) {
+            blocks.add(new Block(date, start, end));
+        }
+    }
+
+    /**
+     * Декодирование блока.
+     * @return - профиль или null, если в блоке нет строк с глубинами и температурами (такие блоки пропускаются)
+     */
+    private TemperatureData.Profile decode(Block block) {
+        CharSequence depthsLine = null;
+        CharSequence tempsLine = null;
+
+        int lineNumber = 0;
+        int lineStart = block.start();
+        while (lineStart < block.end() && tempsLine == null) {
+            int lineEnd = lineEnd(lineStart, block.end());
+            if (lineNumber == PointParser.DEPTHS_LINE) {
+                depthsLine = new NumberTokenizer.ByteSequence(buffer, lineStart, lineEnd);
+            } else if (lineNumber == PointParser.TEMPERATURES_LINE) {
+                tempsLine = new NumberTokenizer.ByteSequence(buffer, lineStart, lineEnd);
+            }
+            lineNumber++;
+            lineStart = lineEnd + 1;
+        }
+
+        return tempsLine != null ? PointParser.parseProfile(depthsLine, tempsLine) : null;
+    }
+
+    /**
+     * Позиция символа перевода строки (или конца диапазона).
+     */
+    private int lineEnd(int from, int limit) {
+        int i = from;
+        while (i < limit && buffer.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Поиск даты вида yyyy-M-d в строке (то же, что и регулярное выражение в {@link PointParser}).
+     * @return - дата или null
+     */
+    private LocalDate findDate(int from, int to) {
+        for (int i = from; i + 4 < to; i++) {
+            if (!isDigits(i, 4) || buffer.get(i + 4) != '-') {
+                continue;
+            }
+
+            int year = number(i, 4);
+            for (int monthDigits = 2; monthDigits >= 1; monthDigits--) {
+                int monthStart = i + 5;
+                int dayStart = monthStart + monthDigits + 1;
+                if (dayStart >= to || !isDigits(monthStart, monthDigits) || buffer.get(dayStart - 1) != '-' || !isDigit(dayStart)) {
+                    continue;
+                }
+
+                int dayDigits = dayStart + 1 < to && isDigit(dayStart + 1) ? 2 : 1;
+                return LocalDate.of(year, number(monthStart, monthDigits), number(dayStart, dayDigits));
+            }
+        }
+        return null;
+    }
+
+    private boolean isDigits(int from, int count) {
+        if (from + count > buffer.limit()) {
+            return false;
+        }
+        for (int i = from; i < from + count; i++) {
+            if (!isDigit(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isDigit(int position) {
+        byte b = buffer.get(position);
+        return b >= '0' && b <= '9';
+    }
+
+    private int number(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            value = value * 10 + (buffer.get(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Блок-профиль: дата и границы в байтах файла.
+     */
+    private record Block(LocalDate date, int start, int end) {
+    }
+}
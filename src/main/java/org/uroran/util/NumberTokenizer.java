@@ -0,0 +1,216 @@
+package org.uroran.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Разбор строк с числами, разделенными любыми пробельными символами, сразу в массив double.
+ * На каждое число не создается ни строк, ни промежуточных массивов: единственная аллокация - результат.
+ * Обычные десятичные числа (до 15 значащих цифр и порядка 10^22) переводятся точно без {@link Double#parseDouble};
+ * остальные случаи передаются в {@link Double#parseDouble}, поэтому результат всегда совпадает с ним.
+ */
+public final class NumberTokenizer {
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumberTokenizer() {
+    }
+
+    /**
+     * Разбор всех чисел в строке.
+     * @param text - строка
+     * @return - массив чисел
+     */
+    public static double[] parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Разбор всех чисел в части строки.
+     * @param text - строка
+     * @param from - начало (включительно)
+     * @param to - конец (не включительно)
+     * @return - массив чисел
+     */
+    public static double[] parse(CharSequence text, int from, int to) {
+        double[] result = new double[countTokens(text, from, to)];
+
+        int count = 0;
+        int i = from;
+        while (i < to) {
+            while (i < to && isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < to && !isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (start < i) {
+                result[count++] = parseNumber(text, start, i);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Разбор всех чисел в части байтового буфера (ASCII), например отображенного в память файла.
+     * @param buffer - буфер (позиция буфера не меняется)
+     * @param from - начало (включительно)
+     * @param to - конец (не включительно)
+     * @return - массив чисел
+     */
+    public static double[] parse(ByteBuffer buffer, int from, int to) {
+        return parse(new ByteSequence(buffer, from, to));
+    }
+
+    /**
+     * Количество чисел в части строки.
+     */
+    public static int countTokens(CharSequence text, int from, int to) {
+        int count = 0;
+        boolean inToken = false;
+        for (int i = from; i < to; i++) {
+            boolean whitespace = isWhitespace(text.charAt(i));
+            if (!whitespace && !inToken) {
+                count++;
+            }
+            inToken = !whitespace;
+        }
+        return count;
+    }
+
+    /**
+     * Разбор одного числа.
+     * @param text - строка
+     * @param from - начало числа
+     * @param to - конец числа
+     * @return - число
+     */
+    static double parseNumber(CharSequence text, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        char c = text.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+
+        while (i < to && isDigit(c = text.charAt(i))) {
+            mantissa = mantissa * 10 + (c - '0');
+            if (mantissa != 0) {
+                significantDigits++;
+            }
+            anyDigit = true;
+            i++;
+            if (significantDigits > MAX_FAST_DIGITS) {
+                return slowParse(text, from, to);
+            }
+        }
+
+        if (i < to && text.charAt(i) == '.') {
+            i++;
+            while (i < to && isDigit(c = text.charAt(i))) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    significantDigits++;
+                }
+                exponent--;
+                anyDigit = true;
+                i++;
+                if (significantDigits > MAX_FAST_DIGITS) {
+                    return slowParse(text, from, to);
+                }
+            }
+        }
+
+        if (!anyDigit) {
+            return slowParse(text, from, to);
+        }
+
+        if (i < to && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negativeExponent = text.charAt(i) == '-';
+                i++;
+            }
+
+            int exponentStart = i;
+            int exponentValue = 0;
+            while (i < to && isDigit(c = text.charAt(i)) && exponentValue < 1000) {
+                exponentValue = exponentValue * 10 + (c - '0');
+                i++;
+            }
+            if (i == exponentStart) {
+                return slowParse(text, from, to);
+            }
+            exponent += negativeExponent ? -exponentValue : exponentValue;
+        }
+
+        if (i != to || exponent < -22 || exponent > 22) {
+            return slowParse(text, from, to);
+        }
+
+        double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(CharSequence text, int from, int to) {
+        return Double.parseDouble(text.subSequence(from, to).toString());
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c <= ' ';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Представление части байтового буфера как последовательности символов (байт = символ).
+     */
+    static final class ByteSequence implements CharSequence {
+        private final ByteBuffer buffer;
+        private final int from;
+        private final int to;
+
+        ByteSequence(ByteBuffer buffer, int from, int to) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(from + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteSequence(buffer, from + start, from + end);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length()];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = charAt(i);
+            }
+            return new String(chars);
+        }
+    }
+}
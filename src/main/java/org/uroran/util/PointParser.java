@@ -1,6 +1,9 @@
 package org.uroran.util;
 
+import org.uroran.models.TemperatureData;
+
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
@@ -16,6 +19,21 @@ import java.util.regex.Pattern;
  */
 public final class PointParser {
     private static final Pattern DATE_PATTERN = Pattern.compile("(\\d{4}-\\d{1,2}-\\d{1,2})");
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("(\\d+)");
+
+    /**
+     * Имя файла с температурами: слово point и номер скважины, который берется из первой группы.
+     */
+    public static final Pattern POINT_FILE_PATTERN = Pattern.compile("(?i).*?point\\D*(\\d+).*");
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-M-d");
+
+    static final int DEPTHS_LINE = 2;
+    static final int TEMPERATURES_LINE = 3;
+
+    /**
+     * Файлы больше этого размера нельзя отобразить в память одним буфером, они читаются потоково.
+     */
+    private static final long MAX_MAPPED_FILE_SIZE = Integer.MAX_VALUE;
 
     private PointParser() {
     }
@@ -26,41 +44,193 @@ public final class PointParser {
      * @return - словарь, где ключ - это дата, значение - это словарь глубина-температура.
      */
     public static Map<LocalDate, Map<Double, Double>> parsePointFile(String path) throws IOException {
-        Path pathToFile = Path.of(path);
-        String text = Files.readString(pathToFile).trim();
-        String[] monthsProfiles = text.split("\n\n");
-
-        monthsProfiles = Arrays.stream(monthsProfiles)
-                .toArray(String[]::new);
+        try (InputStream inputStream = Files.newInputStream(Path.of(path))) {
+            return parsePointFile(inputStream);
+        }
+    }
 
+    /**
+     * Метод для потокового парсинга файла с температурами.
+     * Даты и глубины идут в порядке файла; повторная дата или глубина заменяет значение, оставаясь на месте первой.
+     * @param inputStream - поток с содержимым файла (не закрывается)
+     * @return - словарь, где ключ - это дата, значение - это словарь глубина-температура.
+     */
+    public static Map<LocalDate, Map<Double, Double>> parsePointFile(InputStream inputStream) throws IOException {
         Map<LocalDate, Map<Double, Double>> map = new LinkedHashMap<>();
 
-        Arrays.stream(monthsProfiles).toList().forEach(profile -> fillMap(profile, map));
+        ProfileBlockReader reader = new ProfileBlockReader(inputStream);
+        Matcher matcher = DATE_PATTERN.matcher("");
+        while (reader.nextBlock()) {
+            LocalDate keyDate = findDate(reader, matcher);
+            if (keyDate == null || reader.lineCount() <= TEMPERATURES_LINE) {
+                continue;
+            }
+
+            TemperatureData.Profile profile = parseProfile(reader.line(DEPTHS_LINE), reader.line(TEMPERATURES_LINE));
+            Map<Double, Double> depthToTemperature = new LinkedHashMap<>();
+            for (int i = 0; i < profile.depths().length; i++) {
+                depthToTemperature.put(profile.depths()[i], profile.temperatures()[i]);
+            }
+            map.put(keyDate, depthToTemperature);
+        }
 
         return map;
     }
 
     /**
-     * Приватный метод для заполнения словаря.
-     * @param profile - блок текста с содержимым температур на разной глубине за 1 месяц.
-     * @param map - словарь для заполнения.
+     * Метод для парсинга файла с температурами в колоночное представление.
+     * @param pointNumber - номер скважины
+     * @param path - путь к файлу
+     * @return - температурные данные скважины.
      */
-    private static void fillMap(String profile, Map<LocalDate, Map<Double, Double>> map) {
-        Matcher matcher = DATE_PATTERN.matcher(profile);
-        if (matcher.find()) {
-            LocalDate keyDate = LocalDate.parse(matcher.group(1), DateTimeFormatter.ofPattern("yyyy-M-d"));
+    public static TemperatureData parseTemperatureData(int pointNumber, String path) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(Path.of(path))) {
+            return parseTemperatureData(pointNumber, inputStream);
+        }
+    }
 
-            Map<Double, Double> depthToTemperature = new LinkedHashMap<>();
-            String[] depths = profile.split("\n")[2].trim().split(" ");
-            String[] temps = profile.split("\n")[3].trim().split(" ");
+    /**
+     * Метод для потокового парсинга файла с температурами в колоночное представление.
+     * Файл читается по одному блоку-профилю, поэтому целиком в памяти не хранится.
+     * @param pointNumber - номер скважины
+     * @param inputStream - поток с содержимым файла (не закрывается)
+     * @return - температурные данные скважины.
+     */
+    public static TemperatureData parseTemperatureData(int pointNumber, InputStream inputStream) throws IOException {
+        TemperatureData data = new TemperatureData(pointNumber);
+
+        ProfileBlockReader reader = new ProfileBlockReader(inputStream);
+        Matcher matcher = DATE_PATTERN.matcher("");
+        while (reader.nextBlock()) {
+            fillProfile(reader, matcher, data);
+        }
+
+        return data;
+    }
 
-            for (int i = 0; i < depths.length; i++) {
-                double depth = Double.parseDouble(depths[i]);
-                double temp = Double.parseDouble(temps[i]);
-                depthToTemperature.put(depth, temp);
+    /**
+     * Метод для дочитывания файла, который еще дописывается расчетом.
+     * Разбираются только полностью записанные профили: за которыми уже идет пустая строка,
+     * или последний профиль в потоке, если в нем есть строка с температурами и она закончена переводом строки.
+     * @param inputStream - поток с продолжением файла (не закрывается)
+     * @param data - данные, в которые добавляются новые профили
+     * @return - количество байт от начала потока до конца последнего полного профиля,
+     * с этого места нужно продолжать чтение в следующий раз.
+     */
+    public static long parseAppendedProfiles(InputStream inputStream, TemperatureData data) throws IOException {
+        long completeOffset = 0;
+
+        ProfileBlockReader reader = new ProfileBlockReader(inputStream);
+        Matcher matcher = DATE_PATTERN.matcher("");
+        while (reader.nextBlock()) {
+            boolean complete = reader.isBlockTerminated()
+                    || (reader.lineCount() > TEMPERATURES_LINE && reader.isLastLineTerminated());
+            if (!complete) {
+                break;
             }
 
-            map.put(keyDate, depthToTemperature);
+            fillProfile(reader, matcher, data);
+            completeOffset = reader.blockEndOffset();
+        }
+
+        return completeOffset;
+    }
+
+    /**
+     * Метод для параллельного парсинга локального файла с температурами.
+     * Файл отображается в память, после поиска границ блоков все профили декодируются в fork-join пуле.
+     * Файлы, которые нельзя отобразить одним буфером, разбираются потоково.
+     * @param pointNumber - номер скважины
+     * @param path - путь к файлу
+     * @return - температурные данные скважины.
+     */
+    public static TemperatureData parsePointFileParallel(int pointNumber, Path path) throws IOException {
+        if (Files.size(path) > MAX_MAPPED_FILE_SIZE) {
+            return parseTemperatureData(pointNumber, path.toString());
+        }
+        return MappedPointFile.parse(pointNumber, path);
+    }
+
+    /**
+     * Номер скважины по имени файла: число сразу после слова point ({@link #POINT_FILE_PATTERN}),
+     * а если слова point в имени нет - последнее число в имени без расширения.
+     * @param fileName - имя файла, например point15.txt или point15_2024.dat
+     * @return - номер или 0, если в имени нет чисел.
+     */
+    public static int parsePointNumber(String fileName) {
+        Matcher pointMatcher = POINT_FILE_PATTERN.matcher(fileName);
+        if (pointMatcher.matches()) {
+            return parseNumber(pointMatcher.group(1));
+        }
+
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+
+        Matcher matcher = NUMBER_PATTERN.matcher(baseName);
+        int pointNumber = 0;
+        while (matcher.find()) {
+            pointNumber = parseNumber(matcher.group(1));
+        }
+        return pointNumber;
+    }
+
+    private static int parseNumber(String digits) {
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            // Слишком длинное число - это не номер скважины
+            return 0;
+        }
+    }
+
+    /**
+     * Приватный метод для добавления профиля в данные скважины.
+     * @param profile - блок с содержимым температур на разной глубине за 1 месяц.
+     * @param matcher - переиспользуемый поисковик даты
+     * @param data - данные для заполнения.
+     */
+    private static void fillProfile(ProfileBlockReader profile, Matcher matcher, TemperatureData data) {
+        LocalDate keyDate = findDate(profile, matcher);
+        if (keyDate == null || profile.lineCount() <= TEMPERATURES_LINE) {
+            return;
+        }
+
+        TemperatureData.Profile parsed = parseProfile(profile.line(DEPTHS_LINE), profile.line(TEMPERATURES_LINE));
+        data.addProfile(keyDate, parsed.depths(), parsed.temperatures());
+    }
+
+    /**
+     * Разбор строк с глубинами и температурами одного профиля.
+     * @param depthsLine - строка с глубинами
+     * @param tempsLine - строка с температурами
+     * @return - профиль
+     */
+    static TemperatureData.Profile parseProfile(CharSequence depthsLine, CharSequence tempsLine) {
+        double[] depths = NumberTokenizer.parse(depthsLine);
+        double[] temps = NumberTokenizer.parse(tempsLine);
+
+        if (depths.length != temps.length) {
+            int count = Math.min(depths.length, temps.length);
+            depths = Arrays.copyOf(depths, count);
+            temps = Arrays.copyOf(temps, count);
+        }
+
+        return new TemperatureData.Profile(depths, temps);
+    }
+
+    /**
+     * Поиск даты профиля в строках блока.
+     * @param profile - блок
+     * @param matcher - переиспользуемый поисковик даты
+     * @return - дата или null, если ее нет.
+     */
+    private static LocalDate findDate(ProfileBlockReader profile, Matcher matcher) {
+        for (int i = 0; i < profile.lineCount(); i++) {
+            matcher.reset(profile.line(i));
+            if (matcher.find()) {
+                return LocalDate.parse(matcher.group(1), DATE_FORMATTER);
+            }
         }
+        return null;
     }
 }
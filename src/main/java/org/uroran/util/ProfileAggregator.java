@@ -0,0 +1,239 @@
+package org.uroran.util;
+
+import org.uroran.models.ProfileStatistics;
+import org.uroran.models.Season;
+import org.uroran.models.TemperatureData;
+
+import java.time.Month;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Расчет статистики температуры по глубинам (среднее, минимум, максимум, процентили) за месяц, сезон
+ * или все месяцы в диапазоне лет. Профили выборки сворачиваются параллельно в fork-join пуле,
+ * процентили по глубинам тоже считаются параллельно. Результаты кэшируются по ключу выборки
+ * и сбрасываются, когда профили скважины добавляются или меняются.
+ * Если сетки глубин у профилей отличаются, профили приводятся к общей равномерной сетке скважины ({@link DepthGridResampler}).
+ */
+public class ProfileAggregator {
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private final TemperatureData data;
+    private final Map<StatisticsKey, ProfileStatistics> cache = new HashMap<>();
+    private int cachedSize = -1;
+    private int cachedRewriteCount;
+    private double[] grid;
+
+    public ProfileAggregator(TemperatureData data) {
+        this.data = data;
+    }
+
+    /**
+     * Статистика за выборку.
+     * @param key - выборка
+     * @return - статистика или null, если в выборку не попал ни один профиль
+     */
+    public synchronized ProfileStatistics aggregate(StatisticsKey key) {
+        if (data.size() != cachedSize || data.getRewriteCount() != cachedRewriteCount) {
+            cache.clear();
+            cachedSize = data.size();
+            cachedRewriteCount = data.getRewriteCount();
+            grid = null;
+        }
+        if (cache.containsKey(key)) {
+            return cache.get(key);
+        }
+
+        ProfileStatistics statistics = compute(key);
+        cache.put(key, statistics);
+        return statistics;
+    }
+
+    private ProfileStatistics compute(StatisticsKey key) {
+        int[] indexes = selectProfiles(key);
+        if (indexes.length == 0) {
+            return null;
+        }
+
+        if (grid == null) {
+            double[] sharedGrid = data.getDepthGrid();
+            grid = sharedGrid != null ? sharedGrid : DepthGridResampler.uniformGrid(data);
+        }
+        double[] depths = grid;
+        double[][] values = new double[depths.length][indexes.length];
+        Accumulator total = ForkJoinPool.commonPool().invoke(new AccumulateTask(data, indexes, depths, values, 0, indexes.length));
+
+        double[] mean = new double[depths.length];
+        double[] p10 = new double[depths.length];
+        double[] median = new double[depths.length];
+        double[] p90 = new double[depths.length];
+        IntStream.range(0, depths.length).parallel().forEach(j -> {
+            mean[j] = total.count[j] > 0 ? total.sum[j] / total.count[j] : Double.NaN;
+
+            double[] column = Arrays.stream(values[j]).filter(v -> !Double.isNaN(v)).toArray();
+            Arrays.sort(column);
+            p10[j] = percentile(column, 10);
+            median[j] = percentile(column, 50);
+            p90[j] = percentile(column, 90);
+        });
+
+        for (int j = 0; j < depths.length; j++) {
+            if (total.count[j] == 0) {
+                total.min[j] = Double.NaN;
+                total.max[j] = Double.NaN;
+            }
+        }
+
+        return new ProfileStatistics(key.title(), depths, indexes.length, total.count,
+                mean, total.min, total.max, p10, median, p90);
+    }
+
+    /**
+     * Номера профилей выборки по календарному индексу, по возрастанию даты.
+     */
+    private int[] selectProfiles(StatisticsKey key) {
+        IntStream.Builder builder = IntStream.builder();
+        for (int year : data.getYears()) {
+            if (year < key.fromYear() || year > key.toYear()) {
+                continue;
+            }
+
+            if (key.month() != null) {
+                IntStream.of(data.getProfileIndexes(year, key.month())).forEach(builder::add);
+            } else if (key.season() != null) {
+                IntStream.of(data.getProfileIndexes(year, key.season())).forEach(builder::add);
+            } else {
+                for (Month month : data.getMonths(year)) {
+                    IntStream.of(data.getProfileIndexes(year, month)).forEach(builder::add);
+                }
+            }
+        }
+        return builder.build().toArray();
+    }
+
+    /**
+     * Процентиль отсортированных значений с линейной интерполяцией между соседними.
+     */
+    private static double percentile(double[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        double position = percent / 100 * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    /**
+     * Выборка профилей: месяц за каждый год диапазона, сезон за каждый год диапазона или все профили диапазона.
+     * @param fromYear - первый год (включительно)
+     * @param toYear - последний год (включительно)
+     * @param month - месяц или null
+     * @param season - сезон или null (учитывается, если месяц не задан)
+     */
+    public record StatisticsKey(int fromYear, int toYear, Month month, Season season) {
+        /**
+         * Описание выборки для заголовков графиков и таблиц.
+         */
+        public String title() {
+            String period = fromYear == toYear ? String.valueOf(fromYear) : fromYear + "-" + toYear;
+            if (month != null) {
+                return month + ", " + period;
+            }
+            if (season != null) {
+                return season.getRussianTranslation() + ", " + period;
+            }
+            return period;
+        }
+    }
+
+    /**
+     * Частичные суммы по глубинам.
+     */
+    private static class Accumulator {
+        private final double[] sum;
+        private final double[] min;
+        private final double[] max;
+        private final int[] count;
+
+        Accumulator(int depths) {
+            sum = new double[depths];
+            min = new double[depths];
+            max = new double[depths];
+            count = new int[depths];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        void add(int j, double value) {
+            sum[j] += value;
+            min[j] = Math.min(min[j], value);
+            max[j] = Math.max(max[j], value);
+            count[j]++;
+        }
+
+        Accumulator merge(Accumulator other) {
+            for (int j = 0; j < sum.length; j++) {
+                sum[j] += other.sum[j];
+                min[j] = Math.min(min[j], other.min[j]);
+                max[j] = Math.max(max[j], other.max[j]);
+                count[j] += other.count[j];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Задача свертки диапазона профилей выборки. Заодно раскладывает значения по глубинам для процентилей
+     * (каждая задача пишет только в свои столбцы).
+     */
+    private static class AccumulateTask extends RecursiveTask<Accumulator> {
+        private final TemperatureData data;
+        private final int[] indexes;
+        private final double[] depths;
+        private final double[][] values;
+        private final int from;
+        private final int to;
+
+        AccumulateTask(TemperatureData data, int[] indexes, double[] depths, double[][] values, int from, int to) {
+            this.data = data;
+            this.indexes = indexes;
+            this.depths = depths;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                Accumulator accumulator = new Accumulator(depths.length);
+                for (int p = from; p < to; p++) {
+                    int index = indexes[p];
+                    double[] profileDepths = data.getDepths(index);
+                    double[] temperatures = profileDepths == depths
+                            ? data.getTemperatures(index)
+                            : DepthGridResampler.resample(profileDepths, data.getTemperatures(index), depths);
+                    for (int j = 0; j < depths.length; j++) {
+                        double value = temperatures[j];
+                        values[j][p] = value;
+                        if (!Double.isNaN(value)) {
+                            accumulator.add(j, value);
+                        }
+                    }
+                }
+                return accumulator;
+            }
+
+            int middle = (from + to) >>> 1;
+            AccumulateTask left = new AccumulateTask(data, indexes, depths, values, from, middle);
+            AccumulateTask right = new AccumulateTask(data, indexes, depths, values, middle, to);
+            left.fork();
+            return right.compute().merge(left.join());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.uroran.util;
+
+import org.jfree.data.xy.AbstractIntervalXYDataset;
+import org.uroran.models.ProfileStatistics;
+
+/**
+ * Набор данных для графика-коридора по статистике температуры.
+ * Серия 0 - среднее с коридором от минимума до максимума, серия 1 - медиана с коридором от 10-го до 90-го процентиля.
+ * Значения читаются прямо из массивов статистики.
+ */
+public class ProfileBandDataset extends AbstractIntervalXYDataset {
+    private static final String[] KEYS = {"Среднее (мин - макс)", "Медиана (10% - 90%)"};
+
+    private final ProfileStatistics statistics;
+
+    public ProfileBandDataset(ProfileStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return KEYS.length;
+    }
+
+    @Override
+    public Comparable<?> getSeriesKey(int series) {
+        return KEYS[series];
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return statistics.depths().length;
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return getXValue(series, item);
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return statistics.depths()[item];
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return getYValue(series, item);
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        return series == 0 ? statistics.mean()[item] : statistics.median()[item];
+    }
+
+    @Override
+    public Number getStartX(int series, int item) {
+        return getXValue(series, item);
+    }
+
+    @Override
+    public Number getEndX(int series, int item) {
+        return getXValue(series, item);
+    }
+
+    @Override
+    public Number getStartY(int series, int item) {
+        return getStartYValue(series, item);
+    }
+
+    @Override
+    public double getStartYValue(int series, int item) {
+        return series == 0 ? statistics.min()[item] : statistics.p10()[item];
+    }
+
+    @Override
+    public Number getEndY(int series, int item) {
+        return getEndYValue(series, item);
+    }
+
+    @Override
+    public double getEndYValue(int series, int item) {
+        return series == 0 ? statistics.max()[item] : statistics.p90()[item];
+    }
+}
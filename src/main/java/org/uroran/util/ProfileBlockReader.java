@@ -0,0 +1,148 @@
+package org.uroran.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый читатель блоков профилей из файла с температурами.
+ * Блок - это группа строк, отделенная от соседних пустой строкой.
+ * В памяти одновременно держится только один блок, поэтому расход памяти не зависит от размера файла.
+ * Буферы строк переиспользуются между блоками, строки {@link String} не создаются.
+ */
+final class ProfileBlockReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream inputStream;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private final List<StringBuilder> lines = new ArrayList<>();
+    private int lineCount;
+    private StringBuilder line;
+
+    private long consumed;
+    private boolean lineTerminated;
+    private long blockEndOffset;
+    private boolean blockTerminated;
+    private boolean lastLineTerminated;
+
+    ProfileBlockReader(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * Читает следующий непустой блок строк.
+     * @return - false, если файл закончился.
+     */
+    boolean nextBlock() throws IOException {
+        lineCount = 0;
+        blockTerminated = false;
+
+        while (true) {
+            if (lineCount == lines.size()) {
+                lines.add(new StringBuilder());
+            }
+            line = lines.get(lineCount);
+
+            if (!readLine()) {
+                return lineCount > 0;
+            }
+
+            if (isBlankLine()) {
+                if (lineCount > 0 && lineTerminated) {
+                    blockTerminated = true;
+                    return true;
+                }
+                continue;
+            }
+            lineCount++;
+            blockEndOffset = consumed;
+            lastLineTerminated = lineTerminated;
+        }
+    }
+
+    /**
+     * Смещение (в байтах от начала потока) сразу за последней строкой текущего блока.
+     */
+    long blockEndOffset() {
+        return blockEndOffset;
+    }
+
+    /**
+     * Проверка, что за текущим блоком уже идет пустая строка, то есть блок точно дописан.
+     */
+    boolean isBlockTerminated() {
+        return blockTerminated;
+    }
+
+    /**
+     * Проверка, что последняя строка текущего блока закончилась переводом строки.
+     */
+    boolean isLastLineTerminated() {
+        return lastLineTerminated;
+    }
+
+    /**
+     * Количество строк текущего блока.
+     */
+    int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Строка текущего блока (действительна до чтения следующего блока).
+     */
+    CharSequence line(int index) {
+        if (index >= lineCount) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return lines.get(index);
+    }
+
+    private boolean isBlankLine() {
+        for (int i = 0; i < line.length(); i++) {
+            if (!Character.isWhitespace(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Читает очередную строку в line (без символов перевода строки).
+     * Файлы содержат только ASCII-символы, поэтому байты переводятся в символы напрямую.
+     * @return - false, если достигнут конец потока и ничего не прочитано.
+     */
+    private boolean readLine() throws IOException {
+        line.setLength(0);
+        lineTerminated = false;
+        boolean readAnything = false;
+
+        while (true) {
+            if (position == limit) {
+                limit = inputStream.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return readAnything;
+                }
+            }
+
+            readAnything = true;
+            while (position < limit) {
+                byte b = buffer[position++];
+                consumed++;
+                if (b == '\n') {
+                    lineTerminated = true;
+                    return true;
+                }
+                if (b != '\r') {
+                    line.append((char) (b & 0xFF));
+                }
+            }
+        }
+    }
+}
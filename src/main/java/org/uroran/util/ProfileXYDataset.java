@@ -0,0 +1,113 @@
+package org.uroran.util;
+
+import org.jfree.data.xy.AbstractXYDataset;
+
+import java.util.Arrays;
+
+/**
+ * Набор данных для графика только для чтения поверх массивов глубин и температур скважины.
+ * В отличие от XYSeries точки не копируются в объекты XYDataItem: серия - это ссылки на массивы профиля,
+ * поэтому построение графика не выделяет память на точки.
+ * Серии, у которых X идут не по возрастанию, один раз упорядочиваются в копиях массивов.
+ */
+public class ProfileXYDataset extends AbstractXYDataset {
+    private final Comparable<?>[] keys;
+    private final double[][] xs;
+    private final double[][] ys;
+
+    /**
+     * @param keys - ключи (подписи) серий
+     * @param xs - значения X каждой серии (массивы не копируются и не должны меняться)
+     * @param ys - значения Y каждой серии той же длины
+     */
+    public ProfileXYDataset(Comparable<?>[] keys, double[][] xs, double[][] ys) {
+        this.keys = keys;
+        this.xs = xs;
+        this.ys = ys;
+        for (int series = 0; series < xs.length; series++) {
+            if (!isSorted(xs[series])) {
+                sortByX(series);
+            }
+        }
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return keys.length;
+    }
+
+    @Override
+    public Comparable<?> getSeriesKey(int series) {
+        return keys[series];
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return xs[series].length;
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return getXValue(series, item);
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return xs[series][item];
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return getYValue(series, item);
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        return ys[series][item];
+    }
+
+    /**
+     * Все значения X серии (по возрастанию).
+     */
+    protected double[] xValues(int series) {
+        return xs[series];
+    }
+
+    /**
+     * Все значения Y серии.
+     */
+    protected double[] yValues(int series) {
+        return ys[series];
+    }
+
+    private static boolean isSorted(double[] values) {
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] < values[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Упорядочивание точек серии по X (копии массивов, данные скважины не меняются).
+     */
+    private void sortByX(int series) {
+        double[] x = xs[series];
+        double[] y = ys[series];
+        Integer[] order = new Integer[x.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(x[a], x[b]));
+
+        double[] sortedX = new double[x.length];
+        double[] sortedY = new double[y.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedX[i] = x[order[i]];
+            sortedY[i] = y[order[i]];
+        }
+        xs[series] = sortedX;
+        ys[series] = sortedY;
+    }
+}
@@ -0,0 +1,121 @@
+package org.uroran.util;
+
+import org.jfree.data.Range;
+import org.uroran.models.Season;
+import org.uroran.models.TemperatureData;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Подготовка данных для сравнения нескольких скважин за один и тот же месяц или сезон.
+ * Все скважины приводятся к одной сетке глубин ({@link DepthGridResampler}): если сетки совпадают,
+ * серии всех скважин ссылаются на один массив глубин и исходные массивы температур без копирования.
+ * Серии скважин строятся параллельно в общем fork-join пуле.
+ */
+public final class WellComparison {
+    private WellComparison() {
+    }
+
+    /**
+     * Года, за которые есть профили хотя бы в одной скважине.
+     * @param wells - скважины
+     * @return - года по возрастанию
+     */
+    public static int[] getYears(List<TemperatureData> wells) {
+        TreeSet<Integer> years = new TreeSet<>();
+        for (TemperatureData well : wells) {
+            for (int year : well.getYears()) {
+                years.add(year);
+            }
+        }
+        return years.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Серии профилей всех скважин за выбранный период на общей сетке.
+     * @param wells - скважины
+     * @param grid - общая сетка глубин (см. {@link DepthGridResampler#uniformGrid})
+     * @param key - период
+     * @return - серии в порядке скважин
+     */
+    public static List<WellSeries> buildSeries(List<TemperatureData> wells, double[] grid, ComparisonKey key) {
+        Thread caller = Thread.currentThread();
+        return wells.parallelStream()
+                .map(well -> {
+                    if (caller.isInterrupted()) {
+                        throw new CancellationException("Построение графика отменено");
+                    }
+                    return buildSeries(well, grid, key);
+                })
+                .toList();
+    }
+
+    /**
+     * Общий диапазон температур всех серий, чтобы у графиков была одна шкала.
+     * @param series - серии
+     * @return - диапазон или null, если значений нет
+     */
+    public static Range temperatureRange(List<WellSeries> series) {
+        Range range = null;
+        for (WellSeries well : series) {
+            range = Range.combine(range, well.temperatureRange());
+        }
+        return range;
+    }
+
+    private static WellSeries buildSeries(TemperatureData well, double[] grid, ComparisonKey key) {
+        int[] indexes = key.month() != null
+                ? well.getProfileIndexes(key.year(), key.month())
+                : well.getProfileIndexes(key.year(), key.season());
+
+        LocalDate[] dates = new LocalDate[indexes.length];
+        double[][] temperatures = new double[indexes.length][];
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < indexes.length; i++) {
+            double[] depths = well.getDepths(indexes[i]);
+            dates[i] = well.getDate(indexes[i]);
+            temperatures[i] = depths == grid || Arrays.equals(depths, grid)
+                    ? well.getTemperatures(indexes[i])
+                    : DepthGridResampler.resample(depths, well.getTemperatures(indexes[i]), grid);
+            for (double temperature : temperatures[i]) {
+                if (!Double.isNaN(temperature)) {
+                    min = Math.min(min, temperature);
+                    max = Math.max(max, temperature);
+                }
+            }
+        }
+        Range range = min <= max ? new Range(min, max) : null;
+        return new WellSeries(well.getPointNumber(), dates, temperatures, range);
+    }
+
+    /**
+     * Период сравнения: месяц или сезон года.
+     * @param year - год
+     * @param month - месяц или null
+     * @param season - сезон (учитывается, если месяц не задан)
+     */
+    public record ComparisonKey(int year, Month month, Season season) {
+        /**
+         * Описание периода для заголовков графиков.
+         */
+        public String title() {
+            return (month != null ? month.toString() : season.getRussianTranslation()) + " " + year;
+        }
+    }
+
+    /**
+     * Профили одной скважины за период на общей сетке.
+     * @param pointNumber - номер скважины
+     * @param dates - даты профилей
+     * @param temperatures - температуры профилей на общей сетке
+     * @param temperatureRange - диапазон температур или null, если профилей нет
+     */
+    public record WellSeries(int pointNumber, LocalDate[] dates, double[][] temperatures, Range temperatureRange) {
+    }
+}
@@ -0,0 +1,106 @@
+package org.uroran.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.uroran.models.TemperatureData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PointFileCacheTest {
+    private static final String REMOTE_PATH = "/data/point15.txt";
+    private static final long SIZE = 1234;
+    private static final long MTIME = 1_700_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTrip() throws IOException {
+        PointFileCache cache = new PointFileCache(directory, 1 << 20);
+        TemperatureData data = sampleData();
+
+        cache.put(REMOTE_PATH, SIZE, MTIME, data);
+        TemperatureData cached = cache.get(REMOTE_PATH, SIZE, MTIME, 15);
+
+        assertNotNull(cached);
+        assertEquals(15, cached.getPointNumber());
+        assertEquals(data.size(), cached.size());
+        for (int i = 0; i < data.size(); i++) {
+            assertEquals(data.getDate(i), cached.getDate(i));
+            assertArrayEquals(data.getDepths(i), cached.getDepths(i));
+            assertArrayEquals(data.getTemperatures(i), cached.getTemperatures(i));
+        }
+        // Одинаковые сетки глубин остаются общими
+        assertSame(cached.getDepths(0), cached.getDepths(2));
+    }
+
+    @Test
+    void changedFileIsMissAndEntryIsDeleted() throws IOException {
+        PointFileCache cache = new PointFileCache(directory, 1 << 20);
+        cache.put(REMOTE_PATH, SIZE, MTIME, sampleData());
+
+        assertNull(cache.get(REMOTE_PATH, SIZE + 1, MTIME, 15));
+        assertEquals(0, entries().size());
+
+        cache.put(REMOTE_PATH, SIZE, MTIME, sampleData());
+        assertNull(cache.get(REMOTE_PATH, SIZE, MTIME + 1, 15));
+        assertNull(cache.get("/other/point15.txt", SIZE, MTIME, 15));
+    }
+
+    @Test
+    void truncatedEntryIsMiss() throws IOException {
+        PointFileCache cache = new PointFileCache(directory, 1 << 20);
+        cache.put(REMOTE_PATH, SIZE, MTIME, sampleData());
+        Path entry = entries().getFirst();
+        byte[] bytes = Files.readAllBytes(entry);
+        Files.write(entry, Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertNull(cache.get(REMOTE_PATH, SIZE, MTIME, 15));
+        assertEquals(0, entries().size());
+    }
+
+    @Test
+    void corruptCountsAreMiss() throws IOException {
+        PointFileCache cache = new PointFileCache(directory, 1 << 20);
+        // Смещение количества сеток: метка, версия, размер, время, длина пути и сам путь
+        int gridCountOffset = 4 + 4 + 8 + 8 + 4 + REMOTE_PATH.length();
+        for (int count : new int[]{Integer.MAX_VALUE, -1}) {
+            cache.put(REMOTE_PATH, SIZE, MTIME, sampleData());
+            Path entry = entries().getFirst();
+            byte[] bytes = Files.readAllBytes(entry);
+            ByteBuffer.wrap(bytes).putInt(gridCountOffset, count);
+            Files.write(entry, bytes);
+
+            assertNull(cache.get(REMOTE_PATH, SIZE, MTIME, 15));
+            assertEquals(0, entries().size());
+        }
+    }
+
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    private static TemperatureData sampleData() {
+        TemperatureData data = new TemperatureData(15);
+        double[] grid = {0.0, 0.5, 1.0};
+        data.addProfile(LocalDate.of(2000, 1, 1), grid, new double[]{1.5, -0.5, Double.NaN});
+        data.addProfile(LocalDate.of(2000, 2, 1), new double[]{0.0, 2.0}, new double[]{3, 4});
+        data.addProfile(LocalDate.of(2000, 3, 1), grid.clone(), new double[]{-1, -2, -3});
+        return data;
+    }
+}
@@ -0,0 +1,74 @@
+package org.uroran.service.exporters;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.uroran.models.TemperatureData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryExporterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void headerAndAlignedSections() throws IOException {
+        TemperatureData data = new TemperatureData(15);
+        double[] grid = {0.0, 0.5, 1.0};
+        data.addProfile(LocalDate.of(2000, 1, 1), grid, new double[]{1.5, -0.5, -1.25});
+        data.addProfile(LocalDate.of(2000, 2, 1), grid, new double[]{2.0, 0.0, -3.0});
+
+        Path file = directory.resolve("point15.bin");
+        new BinaryExporter().export(data, file.toFile());
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+
+        int n = 2;
+        int d = grid.length;
+        byte[] magic = new byte[4];
+        buffer.get(0, magic);
+        assertEquals(BinaryExporter.MAGIC, new String(magic, StandardCharsets.US_ASCII));
+        assertEquals(BinaryExporter.VERSION, buffer.getInt(4));
+        assertEquals(15, buffer.getInt(8));
+        assertEquals(n, buffer.getInt(12));
+        assertEquals(d, buffer.getInt(16));
+        assertEquals(0, buffer.getInt(20));
+
+        int gridOffset = BinaryExporter.HEADER_SIZE;
+        int temperaturesOffset = gridOffset + Double.BYTES * d;
+        int datesOffset = temperaturesOffset + Float.BYTES * n * d;
+        assertEquals(24, gridOffset);
+        assertEquals(0, gridOffset % Double.BYTES);
+        assertEquals(0, temperaturesOffset % Float.BYTES);
+        assertEquals(0, datesOffset % Integer.BYTES);
+        assertEquals(datesOffset + Integer.BYTES * n, buffer.capacity());
+
+        for (int j = 0; j < d; j++) {
+            assertEquals(grid[j], buffer.getDouble(gridOffset + Double.BYTES * j));
+        }
+        assertEquals(-0.5f, buffer.getFloat(temperaturesOffset + Float.BYTES));
+        assertEquals(-3.0f, buffer.getFloat(temperaturesOffset + Float.BYTES * (d + 2)));
+        assertEquals(LocalDate.of(2000, 1, 1).toEpochDay(), buffer.getInt(datesOffset));
+        assertEquals(LocalDate.of(2000, 2, 1).toEpochDay(), buffer.getInt(datesOffset + Integer.BYTES));
+    }
+
+    @Test
+    void addsExtensionAndRejectsEmptyData() throws IOException {
+        TemperatureData data = new TemperatureData(15);
+        data.addProfile(LocalDate.of(2000, 1, 1), new double[]{0.0}, new double[]{1.0});
+
+        new BinaryExporter().export(data, directory.resolve("point15").toFile());
+
+        assertTrue(Files.exists(directory.resolve("point15.bin")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BinaryExporter().export(new TemperatureData(15), directory.resolve("empty.bin").toFile()));
+    }
+}
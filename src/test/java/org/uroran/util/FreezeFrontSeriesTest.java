@@ -0,0 +1,50 @@
+package org.uroran.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FreezeFrontSeriesTest {
+    private static final double EPS = 1e-12;
+
+    @Test
+    void interpolatesSingleCrossing() {
+        double[] depths = {0, 1, 2, 3};
+        double[] temperatures = {2, 1, -1, -2};
+
+        assertEquals(1.5, FreezeFrontSeries.frontDepth(depths, temperatures), EPS);
+    }
+
+    @Test
+    void takesDeepestCrossing() {
+        double[] depths = {0, 1, 2, 3, 4};
+        double[] temperatures = {-1, 1, 3, 1, -3};
+
+        assertEquals(3.25, FreezeFrontSeries.frontDepth(depths, temperatures), EPS);
+    }
+
+    @Test
+    void noCrossingGivesNaN() {
+        assertTrue(Double.isNaN(FreezeFrontSeries.frontDepth(new double[]{0, 1, 2}, new double[]{-3, -2, -1})));
+        assertTrue(Double.isNaN(FreezeFrontSeries.frontDepth(new double[]{0, 1, 2}, new double[]{1, 2, 3})));
+        assertTrue(Double.isNaN(FreezeFrontSeries.frontDepth(new double[0], new double[0])));
+    }
+
+    @Test
+    void nanTailDoesNotHideFront() {
+        // Профиль короче общей сетки: хвост вне его глубин заполнен NaN (DepthGridResampler.onGrid)
+        double[] depths = {0, 1, 2, 3, 4, 5};
+        double[] temperatures = {3, 1, -1, -2, Double.NaN, Double.NaN};
+
+        assertEquals(1.5, FreezeFrontSeries.frontDepth(depths, temperatures), EPS);
+    }
+
+    @Test
+    void nanHeadAndGapAreSkipped() {
+        double[] depths = {0, 1, 2, 3, 4};
+        double[] temperatures = {Double.NaN, -1, Double.NaN, 1, -1};
+
+        assertEquals(3.5, FreezeFrontSeries.frontDepth(depths, temperatures), EPS);
+    }
+}
@@ -0,0 +1,122 @@
+package org.uroran.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.uroran.models.TemperatureData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedPointFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void matchesStreamingParse() throws IOException {
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(7);
+        LocalDate date = LocalDate.of(2000, 1, 1);
+        // Больше порога параллельного декодирования
+        for (int i = 0; i < 200; i++) {
+            int depths = 20 + random.nextInt(5);
+            text.append("Point 15\nDate: ").append(date.getYear()).append('-').append(date.getMonthValue())
+                    .append('-').append(date.getDayOfMonth()).append('\n');
+            for (int j = 0; j < depths; j++) {
+                text.append(String.format(Locale.ROOT, "%.2f ", j * 0.5));
+            }
+            text.append('\n');
+            for (int j = 0; j < depths; j++) {
+                text.append(String.format(Locale.ROOT, "%.4f ", random.nextGaussian() * 5));
+            }
+            text.append("\n\n");
+            date = date.plusMonths(1);
+        }
+        Path file = write(text.toString());
+
+        assertSameData(PointParser.parseTemperatureData(15, file.toString()), PointParser.parsePointFileParallel(15, file));
+    }
+
+    @Test
+    void handlesIrregularBlocks() throws IOException {
+        String text = """
+                Point 15
+                Date: 2001-3-1
+                0.0 0.5 1.0
+                1.5 -0.5 -1.5
+
+                без даты
+                0 1
+                2 3
+
+                Point 15
+                Date: 2000-12-1
+                0.0 0.5
+
+                \r
+                Point 15\r
+                Date: 2000-1-1\r
+                0.0 0.5 1.0 1.5\r
+                4 3 2\r
+
+
+                Point 15
+                Date: 2001-3-1
+                0.0 1.0
+                -1 -2""";
+        Path file = write(text);
+
+        TemperatureData streamed = PointParser.parseTemperatureData(15, file.toString());
+        TemperatureData mapped = PointParser.parsePointFileParallel(15, file);
+
+        assertSameData(streamed, mapped);
+        assertEquals(2, mapped.size());
+        assertEquals(LocalDate.of(2000, 1, 1), mapped.getDate(0));
+        assertArrayEquals(new double[]{0.0, 0.5, 1.0}, mapped.getDepths(0));
+        assertArrayEquals(new double[]{-1, -2}, mapped.getTemperatures(1));
+        assertFalse(mapped.hasSharedDepthGrid());
+    }
+
+    @Test
+    void sharesEqualDepthGrids() throws IOException {
+        Path file = write("""
+                Date: 2000-1-1
+                x
+                0 1 2
+                3 4 5
+
+                Date: 2000-2-1
+                x
+                0 1 2
+                6 7 8
+                """);
+
+        TemperatureData data = PointParser.parsePointFileParallel(15, file);
+
+        assertTrue(data.hasSharedDepthGrid());
+        assertTrue(data.getDepths(0) == data.getDepths(1));
+    }
+
+    private Path write(String text) throws IOException {
+        Path file = directory.resolve("point15.txt");
+        Files.writeString(file, text);
+        return file;
+    }
+
+    private static void assertSameData(TemperatureData expected, TemperatureData actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getDate(i), actual.getDate(i));
+            assertArrayEquals(expected.getDepths(i), actual.getDepths(i));
+            assertArrayEquals(expected.getTemperatures(i), actual.getTemperatures(i));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.uroran.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NumberTokenizerTest {
+    @Test
+    void fastPathMatchesParseDouble() {
+        String[] numbers = {"0", "-0", "0.0", "-0.0", "0.5", "-1.1096", "+2.25", "12345", "0.0156", "999999999999999",
+                "1e5", "1.5E-3", "-7.25e+2", "123.456e-7", "0.000001", "1e22", "1e-22", ".5", "5."};
+        for (String number : numbers) {
+            assertParsed(number);
+        }
+    }
+
+    @Test
+    void fallbackMatchesParseDouble() {
+        String[] numbers = {"1.2345678901234567", "123456789012345678", "0.30000000000000004", "1e23", "1e-23",
+                "1e300", "-2.5e-300", "4.9e-324", "1.7976931348623157e308", "NaN", "-Infinity", "0x1p3"};
+        for (String number : numbers) {
+            assertParsed(number);
+        }
+    }
+
+    @Test
+    void randomNumbersMatchParseDouble() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 4);
+            assertParsed(String.format(Locale.ROOT, "%." + random.nextInt(12) + "f", value));
+            assertParsed(Double.toString(value));
+        }
+    }
+
+    @Test
+    void splitsOnAnyWhitespace() {
+        String line = "  0.00\t0.50  1.00\r\n-2.5e1 ";
+
+        assertArrayEquals(new double[]{0.0, 0.5, 1.0, -25.0}, NumberTokenizer.parse(line));
+        assertEquals(4, NumberTokenizer.countTokens(line, 0, line.length()));
+        assertArrayEquals(new double[]{0.5, 1.0}, NumberTokenizer.parse(line, 7, 17));
+        assertArrayEquals(new double[0], NumberTokenizer.parse(" \t "));
+    }
+
+    @Test
+    void byteBufferMatchesString() {
+        String line = "x 0.0156 -0.1061 -0.2109 1e-30 y";
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+
+        assertArrayEquals(NumberTokenizer.parse(line, 2, line.length() - 2),
+                NumberTokenizer.parse(buffer, 2, line.length() - 2));
+        assertEquals(0, buffer.position());
+    }
+
+    private static void assertParsed(String number) {
+        assertEquals(Double.parseDouble(number), NumberTokenizer.parseNumber(number, 0, number.length()), number);
+    }
+}